@@ -0,0 +1,207 @@
+package org.usfirst.frc3946.Utilities;
+
+/**
+ * Recognizes button chords (several buttons held together), double taps and hold-then-press combos from a controller's button bits.
+ * Call update() once every cycle with getRawButtons(), then check which combos fired with wasFired().
+ * Every combo is filed under the buttons it depends on, so a cycle only looks at the combos of the buttons that changed,
+ * and a cycle where no button changed costs the same no matter how many combos are registered.
+ */
+public class ComboRecognizer {
+    
+    /**
+     * Most combos that can be registered
+     */
+    public static final int kMaxCombos = 32;
+    
+    private static final int kButtons = 16;
+    
+    private static final int kChord = 0;
+    private static final int kDoubleTap = 1;
+    private static final int kHoldThenPress = 2;
+    
+    private final int[] m_type = new int[kMaxCombos];
+    private final int[] m_mask = new int[kMaxCombos]; //Buttons which have to be held
+    private final int[] m_holdIndex = new int[kMaxCombos]; //Button held before the press
+    private final double[] m_time = new double[kMaxCombos]; //Double tap window or hold time
+    private final boolean[] m_active = new boolean[kMaxCombos]; //If a chord is being held
+    private final double[] m_lastFired = new double[kMaxCombos];
+    private final int[] m_firedCycle = new int[kMaxCombos];
+    private int m_count = 0;
+    
+    private final int[][] m_byButton = new int[kButtons][kMaxCombos]; //Combos to check when a button changes
+    private final int[] m_byButtonCount = new int[kButtons];
+    
+    private final double[] m_pressTime = new double[kButtons]; //When each button was last pressed
+    private final double[] m_previousPressTime = new double[kButtons]; //The press before that
+    private int m_buttons = 0;
+    private int m_cycle = 1;
+    
+    /**
+     * Constructor
+     */
+    public ComboRecognizer() {
+        for(int i = 0; i < kButtons; i++) {
+            m_pressTime[i] = Double.NEGATIVE_INFINITY;
+            m_previousPressTime[i] = Double.NEGATIVE_INFINITY;
+        }
+    }
+    
+    /**
+     * Gets the bit of a button, to build chord masks
+     * @param button number of the button
+     * @return Button bit
+     */
+    public static int mask(int button) {
+        return 0x1 << (button - 1);
+    }
+    
+    /**
+     * Registers a chord, which fires when every button in it is held, and stays active until one is let go
+     * @param mask Button bits of the chord, such as mask(5) | mask(1)
+     * @return Combo id
+     */
+    public synchronized int addChord(int mask) {
+        if((mask & ~0xFFFF) != 0 || mask == 0) {
+            throw new IllegalArgumentException("Chord needs buttons 1 to 16");
+        }
+        int id = add(kChord, mask, -1, 0);
+        for(int i = 0; i < kButtons; i++) {
+            if((mask & (0x1 << i)) != 0) {
+                index(i, id);
+            }
+        }
+        return id;
+    }
+    
+    /**
+     * Registers a double tap, which fires when a button is pressed twice within a window
+     * @param button number of the button
+     * @param window Most time between the two presses in seconds
+     * @return Combo id
+     */
+    public synchronized int addDoubleTap(int button, double window) {
+        checkButton(button);
+        int id = add(kDoubleTap, mask(button), -1, window);
+        index(button - 1, id);
+        return id;
+    }
+    
+    /**
+     * Registers a hold-then-press, which fires when a button is pressed while another has been held long enough
+     * @param holdButton number of the button held
+     * @param pressButton number of the button pressed
+     * @param holdTime Least time the first button has to be held in seconds
+     * @return Combo id
+     */
+    public synchronized int addHoldThenPress(int holdButton, int pressButton, double holdTime) {
+        checkButton(holdButton);
+        checkButton(pressButton);
+        int id = add(kHoldThenPress, mask(pressButton), holdButton - 1, holdTime);
+        index(pressButton - 1, id);
+        return id;
+    }
+    
+    /**
+     * Checks the combos against this cycle's buttons, call once every cycle
+     * @param buttons Button bits, button 1 in the lowest bit
+     * @param time Current time in seconds, such as Timer.getFPGATimestamp()
+     */
+    public synchronized void update(int buttons, double time) {
+        m_cycle++;
+        int changed = (buttons ^ m_buttons) & 0xFFFF;
+        m_buttons = buttons;
+        if(changed == 0) {
+            return;
+        }
+        
+        int pressed = changed & buttons;
+        for(int i = 0; i < kButtons; i++) { //Stamp every press first, so combos pressed in the same cycle see each other
+            if((pressed & (0x1 << i)) != 0) {
+                m_previousPressTime[i] = m_pressTime[i];
+                m_pressTime[i] = time;
+            }
+        }
+        
+        for(int i = 0; i < kButtons; i++) {
+            int bit = 0x1 << i;
+            if((changed & bit) == 0) {
+                continue;
+            }
+            boolean down = (buttons & bit) != 0;
+            int[] combos = m_byButton[i];
+            for(int j = 0; j < m_byButtonCount[i]; j++) {
+                check(combos[j], i, down, time);
+            }
+        }
+    }
+    
+    /**
+     * If a combo fired on the last update
+     * @param id Combo id
+     * @return if it fired
+     */
+    public synchronized boolean wasFired(int id) {
+        return m_firedCycle[id] == m_cycle;
+    }
+    
+    /**
+     * If a chord is being held
+     * @param id Combo id
+     * @return if every button of the chord is held, always false for other combos
+     */
+    public synchronized boolean isActive(int id) {
+        return m_active[id];
+    }
+    
+    private void check(int id, int button, boolean down, double time) {
+        switch(m_type[id]) {
+            case kChord:
+                boolean held = (m_buttons & m_mask[id]) == m_mask[id];
+                if(held && !m_active[id]) {
+                    fire(id, time);
+                }
+                m_active[id] = held;
+                break;
+            case kDoubleTap:
+                double previous = m_previousPressTime[button];
+                if(down && time - previous <= m_time[id] && previous > m_lastFired[id]) { //A tap is only used once
+                    fire(id, time);
+                }
+                break;
+            case kHoldThenPress:
+                int hold = m_holdIndex[id];
+                if(down && (m_buttons & (0x1 << hold)) != 0 && time - m_pressTime[hold] >= m_time[id]) {
+                    fire(id, time);
+                }
+                break;
+        }
+    }
+    
+    private void fire(int id, double time) {
+        m_firedCycle[id] = m_cycle;
+        m_lastFired[id] = time;
+    }
+    
+    private int add(int type, int mask, int holdIndex, double time) {
+        if(m_count >= kMaxCombos) {
+            throw new IllegalStateException("Too many combos");
+        }
+        int id = m_count++;
+        m_type[id] = type;
+        m_mask[id] = mask;
+        m_holdIndex[id] = holdIndex;
+        m_time[id] = time;
+        m_lastFired[id] = Double.NEGATIVE_INFINITY;
+        return id;
+    }
+    
+    private void index(int button, int id) {
+        m_byButton[button][m_byButtonCount[button]++] = id;
+    }
+    
+    private void checkButton(int button) {
+        if(button < 1 || button > kButtons) {
+            throw new IllegalArgumentException("Button must be 1 to 16");
+        }
+    }
+}
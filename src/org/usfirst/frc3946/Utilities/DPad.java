@@ -0,0 +1,196 @@
+package org.usfirst.frc3946.Utilities;
+
+/**
+ * Turns the D-Pad axes of a controller into one of 8 directions and an angle, with pressed and released events for each direction.
+ * Each axis is rounded to -1, 0 or 1 and the pair looks up the direction and angle in a table, so there is no trig involved.
+ * Call update() once every cycle, the XBOX Controller only has a Left-Right D-Pad axis so it only ever reports left, right or center.
+ */
+public class DPad {
+    
+    /**
+     * Represents a direction of the D-Pad.
+     */
+    public static class Direction {
+        
+        /**
+         * The integer value representing this enumeration
+         */
+        public final int value;
+        
+        /**
+         * Angle of the direction in degrees, clockwise from up, -1 for center
+         */
+        public final int angle;
+        
+        private Direction(int value) {
+            this.value = value;
+            this.angle = value == kCenter_val ? -1 : value * 45;
+        }
+        
+        private static final int kUp_val = 0;
+        private static final int kUpRight_val = 1;
+        private static final int kRight_val = 2;
+        private static final int kDownRight_val = 3;
+        private static final int kDown_val = 4;
+        private static final int kDownLeft_val = 5;
+        private static final int kLeft_val = 6;
+        private static final int kUpLeft_val = 7;
+        private static final int kCenter_val = 8;
+        
+        /**
+         * Direction: Up
+         */
+        public static final Direction kUp = new Direction(kUp_val);
+        
+        /**
+         * Direction: Up and Right
+         */
+        public static final Direction kUpRight = new Direction(kUpRight_val);
+        
+        /**
+         * Direction: Right
+         */
+        public static final Direction kRight = new Direction(kRight_val);
+        
+        /**
+         * Direction: Down and Right
+         */
+        public static final Direction kDownRight = new Direction(kDownRight_val);
+        
+        /**
+         * Direction: Down
+         */
+        public static final Direction kDown = new Direction(kDown_val);
+        
+        /**
+         * Direction: Down and Left
+         */
+        public static final Direction kDownLeft = new Direction(kDownLeft_val);
+        
+        /**
+         * Direction: Left
+         */
+        public static final Direction kLeft = new Direction(kLeft_val);
+        
+        /**
+         * Direction: Up and Left
+         */
+        public static final Direction kUpLeft = new Direction(kUpLeft_val);
+        
+        /**
+         * Direction: Nothing pressed
+         */
+        public static final Direction kCenter = new Direction(kCenter_val);
+    }
+    
+    /**
+     * Direction for each rounded axis pair, indexed by (up-down + 1) * 3 + (left-right + 1)
+     */
+    private static final Direction[] kTable = {
+        Direction.kUpLeft, Direction.kUp, Direction.kUpRight,
+        Direction.kLeft, Direction.kCenter, Direction.kRight,
+        Direction.kDownLeft, Direction.kDown, Direction.kDownRight
+    };
+    
+    private static final int[] kBits = new int[kTable.length]; //Direction bit for each table entry, center has none
+    
+    static {
+        for(int i = 0; i < kTable.length; i++) {
+            kBits[i] = kTable[i] == Direction.kCenter ? 0 : 0x1 << kTable[i].value;
+        }
+    }
+    
+    private int m_index = 4; //Table entry of the current direction
+    private int m_bits = 0;
+    private int m_pressed = 0;
+    private int m_released = 0;
+    
+    /**
+     * Looks up the direction of the D-Pad axes
+     * @param leftRight D-Pad Left-Right Axis, left is -1
+     * @param upDown D-Pad Up-Down Axis, up is -1
+     * @return Direction of the D-Pad
+     */
+    public static Direction getDirection(double leftRight, double upDown) {
+        return kTable[index(leftRight, upDown)];
+    }
+    
+    /**
+     * Reads the D-Pad of an XBOX Controller, call once every cycle
+     * @param controller Controller to read
+     */
+    public void update(XboxController controller) {
+        update(controller.getAxis(XboxController.AxisType.kDLeftRight), 0);
+    }
+    
+    /**
+     * Reads the D-Pad of a Logitech Controller, call once every cycle
+     * @param controller Controller to read
+     */
+    public void update(LogitechController controller) {
+        update(controller.getAxis(LogitechController.AxisType.kDLeftRight), controller.getAxis(LogitechController.AxisType.kDUpDown));
+    }
+    
+    /**
+     * Updates the D-Pad from its axes, call once every cycle
+     * @param leftRight D-Pad Left-Right Axis, left is -1
+     * @param upDown D-Pad Up-Down Axis, up is -1
+     */
+    public synchronized void update(double leftRight, double upDown) {
+        m_index = index(leftRight, upDown);
+        int bits = kBits[m_index];
+        m_pressed = bits & ~m_bits;
+        m_released = m_bits & ~bits;
+        m_bits = bits;
+    }
+    
+    /**
+     * Gets the direction as of the last update
+     * @return Direction of the D-Pad
+     */
+    public synchronized Direction getDirection() {
+        return kTable[m_index];
+    }
+    
+    /**
+     * Gets the angle as of the last update
+     * @return Angle in degrees clockwise from up, -1 if nothing is pressed
+     */
+    public synchronized int getAngle() {
+        return kTable[m_index].angle;
+    }
+    
+    /**
+     * If the D-Pad is pointed in a direction
+     * @param direction Direction to check
+     * @return if it is pointed that way
+     */
+    public synchronized boolean get(Direction direction) {
+        return kTable[m_index] == direction;
+    }
+    
+    /**
+     * If the D-Pad was pointed in a direction on the last update, but not the one before
+     * @param direction Direction to check
+     * @return if that direction was just pressed
+     */
+    public synchronized boolean wasPressed(Direction direction) {
+        return (m_pressed & (0x1 << direction.value)) != 0;
+    }
+    
+    /**
+     * If the D-Pad stopped being pointed in a direction on the last update
+     * @param direction Direction to check
+     * @return if that direction was just released
+     */
+    public synchronized boolean wasReleased(Direction direction) {
+        return (m_released & (0x1 << direction.value)) != 0;
+    }
+    
+    /**
+     * Rounds both axes to -1, 0 or 1 and combines them into a table index
+     */
+    private static int index(double leftRight, double upDown) {
+        return (int) (upDown + 1.5) * 3 + (int) (leftRight + 1.5);
+    }
+}
@@ -0,0 +1,263 @@
+package org.usfirst.frc3946.Utilities;
+
+/**
+ * Rebuilds the targets of each frame from the compact binary frames a RaspberryPi sends in delta mode.
+ * Keyframes carry every target, delta frames only the fields which changed since the frame before, as differences.
+ * A missed or unreadable frame leaves the decoder out of sync, it then asks for a keyframe and ignores delta frames until one arrives.
+ *
+ * Numbers are varints: 7 bits per byte, low bits first, the top bit set on every byte but the last.
+ * Signed numbers are zig-zag encoded first, so small negative numbers stay small: 0, -1, 1, -2 become 0, 1, 2, 3.
+ * Every frame starts with its type and the number of bytes after that number, so frames can be cut out of a stream
+ * no matter how it splits or joins them.
+ * Keyframe: 'K', length, sequence, count, then offset and distance (signed) for each target
+ * Delta frame: 'D', length, sequence, changed bits, new count if bit 0 is set, then the signed difference of each changed field,
+ * bit 1 + 2n flagging the offset of target n and bit 2 + 2n its distance. Targets beyond the previous count start from 0.
+ */
+public class DeltaFrameDecoder {
+    
+    /**
+     * Frame type: every target
+     */
+    public static final byte kKeyframe = 'K';
+    
+    /**
+     * Frame type: changes since the last frame
+     */
+    public static final byte kDelta = 'D';
+    
+    /**
+     * Most targets in a frame, limited by the changed bits
+     */
+    public static final int kMaxTargets = 15;
+    
+    /**
+     * Most bytes after the length, a sequence, changed bits, count and every field as the longest varints
+     */
+    public static final int kMaxBodySize = 5 + 5 + 5 + 2 * kMaxTargets * 5;
+    
+    /**
+     * Most bytes a whole frame can take
+     */
+    public static final int kMaxFrameSize = 1 + 2 + kMaxBodySize;
+    
+    private final int[] m_offsets = new int[kMaxTargets]; //Targets of the last good frame
+    private final int[] m_distances = new int[kMaxTargets];
+    private int m_count = 0;
+    private int m_sequence = 0;
+    private boolean m_synced = false;
+    
+    private final int[] m_nextOffsets = new int[kMaxTargets]; //Frame being decoded, only kept if it decodes completely
+    private final int[] m_nextDistances = new int[kMaxTargets];
+    private int m_nextCount;
+    private int m_nextSequence;
+    
+    private byte[] m_data; //Cursor over the frame being decoded
+    private int m_position;
+    private int m_length;
+    
+    private int m_frames = 0;
+    private int m_resyncs = 0;
+    
+    /**
+     * Works out how long the frame at the start of some bytes is, to cut it out of a stream
+     * @param data Bytes received
+     * @param offset Index of the first byte of the frame
+     * @param length Number of bytes received from the offset on
+     * @return Bytes in the whole frame, 0 if more bytes are needed to tell, -1 if the bytes do not start a frame
+     */
+    public static int frameSize(byte[] data, int offset, int length) {
+        if(length < 1) {
+            return 0;
+        }
+        if(data[offset] != kKeyframe && data[offset] != kDelta) {
+            return -1;
+        }
+        int size = 0;
+        for(int i = 1; i < 6; i++) {
+            if(i >= length) {
+                return 0;
+            }
+            int b = data[offset + i] & 0xFF;
+            size |= (b & 0x7F) << (7 * (i - 1));
+            if((b & 0x80) == 0) {
+                return size <= kMaxBodySize ? i + 1 + size : -1;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Decodes a frame
+     * @param data Bytes of the frame
+     * @param length Number of bytes in the frame
+     * @return if the frame was decoded, if not needsKeyframe() says to ask for a keyframe
+     */
+    public boolean decode(byte[] data, int length) {
+        return decode(data, 0, length);
+    }
+    
+    /**
+     * Decodes a frame
+     * @param data Bytes holding the frame
+     * @param offset Index of the first byte of the frame
+     * @param length Number of bytes in the frame, such as frameSize() gives
+     * @return if the frame was decoded, if not needsKeyframe() says to ask for a keyframe
+     */
+    public synchronized boolean decode(byte[] data, int offset, int length) {
+        m_data = data;
+        m_position = offset;
+        m_length = offset + length;
+        boolean decoded;
+        try {
+            int type = readByte();
+            int size = readVarint();
+            if(size != m_length - m_position) { //The length has to cover exactly the rest
+                decoded = false;
+            } else if(type == kKeyframe) {
+                decoded = decodeKeyframe();
+            } else if(type == kDelta && m_synced) {
+                decoded = decodeDelta();
+            } else {
+                decoded = false;
+            }
+            decoded &= m_position == m_length; //Trailing bytes mean the frame was not what it seemed
+        } catch(ArrayIndexOutOfBoundsException ex) { //Cut off
+            decoded = false;
+        }
+        m_data = null;
+        
+        if(decoded) {
+            System.arraycopy(m_nextOffsets, 0, m_offsets, 0, kMaxTargets);
+            System.arraycopy(m_nextDistances, 0, m_distances, 0, kMaxTargets);
+            m_count = m_nextCount;
+            m_sequence = m_nextSequence;
+            m_synced = true; //Only a keyframe decodes while out of sync
+            m_frames++;
+        } else if(m_synced) {
+            m_synced = false;
+            m_resyncs++;
+        }
+        return decoded;
+    }
+    
+    /**
+     * If the decoder is out of sync, and the next request should be for a keyframe
+     * @return if a keyframe is needed
+     */
+    public synchronized boolean needsKeyframe() {
+        return !m_synced;
+    }
+    
+    /**
+     * Copies the targets of the last good frame
+     * @param offsets Where to copy the offsets
+     * @param distances Where to copy the distances
+     * @return Number of targets in the frame, only as many as fit are copied
+     */
+    public synchronized int getTargets(int[] offsets, int[] distances) {
+        int count = Math.min(m_count, Math.min(offsets.length, distances.length));
+        System.arraycopy(m_offsets, 0, offsets, 0, count);
+        System.arraycopy(m_distances, 0, distances, 0, count);
+        return m_count;
+    }
+    
+    public synchronized int getSequence() {
+        return m_sequence;
+    }
+    
+    /**
+     * Number of frames decoded
+     * @return Frames decoded
+     */
+    public synchronized int getFrames() {
+        return m_frames;
+    }
+    
+    /**
+     * Number of times the decoder fell out of sync and needed a keyframe
+     * @return Resyncs
+     */
+    public synchronized int getResyncs() {
+        return m_resyncs;
+    }
+    
+    /**
+     * Forgets the last frame, so the next request is for a keyframe
+     */
+    public synchronized void reset() {
+        m_synced = false;
+        m_count = 0;
+    }
+    
+    private boolean decodeKeyframe() {
+        int sequence = readVarint();
+        int count = readVarint();
+        if(count < 0 || count > kMaxTargets) {
+            return false;
+        }
+        for(int i = 0; i < count; i++) {
+            m_nextOffsets[i] = readSigned();
+            m_nextDistances[i] = readSigned();
+        }
+        m_nextSequence = sequence;
+        m_nextCount = count;
+        return true;
+    }
+    
+    private boolean decodeDelta() {
+        int sequence = readVarint();
+        if(sequence != m_sequence + 1) { //A frame went missing
+            return false;
+        }
+        int changed = readVarint();
+        int count = m_count;
+        if((changed & 0x1) != 0) {
+            count = readVarint();
+            if(count < 0 || count > kMaxTargets) {
+                return false;
+            }
+        }
+        if((changed >>> (1 + 2 * count)) != 0) { //Changes to targets which are not there
+            return false;
+        }
+        for(int i = 0; i < count; i++) {
+            int offset = i < m_count ? m_offsets[i] : 0;
+            int distance = i < m_count ? m_distances[i] : 0;
+            if((changed & (0x1 << (1 + 2 * i))) != 0) {
+                offset += readSigned();
+            }
+            if((changed & (0x1 << (2 + 2 * i))) != 0) {
+                distance += readSigned();
+            }
+            m_nextOffsets[i] = offset;
+            m_nextDistances[i] = distance;
+        }
+        m_nextSequence = sequence;
+        m_nextCount = count;
+        return true;
+    }
+    
+    private int readByte() {
+        if(m_position >= m_length) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        return m_data[m_position++] & 0xFF;
+    }
+    
+    private int readVarint() {
+        int value = 0;
+        for(int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new ArrayIndexOutOfBoundsException(); //Too long to be a number
+    }
+    
+    private int readSigned() {
+        int value = readVarint();
+        return (value >>> 1) ^ -(value & 0x1);
+    }
+}
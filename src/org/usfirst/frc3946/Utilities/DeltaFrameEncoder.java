@@ -0,0 +1,103 @@
+package org.usfirst.frc3946.Utilities;
+
+/**
+ * Writes frames in the format DeltaFrameDecoder reads, for a coprocessor running Java or for testing the robot side without one.
+ * Send a keyframe whenever the robot asks for one with 'K', and every so often anyway, otherwise send delta frames.
+ */
+public class DeltaFrameEncoder {
+    
+    /**
+     * Most bytes a frame can take
+     */
+    public static final int kMaxFrameSize = DeltaFrameDecoder.kMaxFrameSize;
+    
+    private final int[] m_offsets = new int[DeltaFrameDecoder.kMaxTargets]; //Targets of the last frame sent
+    private final int[] m_distances = new int[DeltaFrameDecoder.kMaxTargets];
+    private int m_count = 0;
+    private int m_sequence = 0;
+    
+    private final byte[] m_body = new byte[DeltaFrameDecoder.kMaxBodySize]; //Frame after the length, written first to know the length
+    private byte[] m_data; //Cursor over the bytes being written
+    private int m_position;
+    
+    /**
+     * Writes a frame
+     * @param offsets Offset of each target
+     * @param distances Distance of each target
+     * @param count Number of targets (0 to 15)
+     * @param keyframe If every target should be sent instead of only the changes
+     * @param output Where to write the frame, at least kMaxFrameSize long
+     * @return Number of bytes written
+     */
+    public synchronized int encode(int[] offsets, int[] distances, int count, boolean keyframe, byte[] output) {
+        if(count < 0 || count > DeltaFrameDecoder.kMaxTargets) {
+            throw new IllegalArgumentException("Too many targets for a frame");
+        }
+        m_data = m_body;
+        m_position = 0;
+        m_sequence++;
+        
+        if(keyframe) {
+            writeVarint(m_sequence);
+            writeVarint(count);
+            for(int i = 0; i < count; i++) {
+                writeSigned(offsets[i]);
+                writeSigned(distances[i]);
+            }
+        } else {
+            int changed = count != m_count ? 0x1 : 0;
+            for(int i = 0; i < count; i++) {
+                int offset = i < m_count ? m_offsets[i] : 0;
+                int distance = i < m_count ? m_distances[i] : 0;
+                if(offsets[i] != offset) {
+                    changed |= 0x1 << (1 + 2 * i);
+                }
+                if(distances[i] != distance) {
+                    changed |= 0x1 << (2 + 2 * i);
+                }
+            }
+            writeVarint(m_sequence);
+            writeVarint(changed);
+            if((changed & 0x1) != 0) {
+                writeVarint(count);
+            }
+            for(int i = 0; i < count; i++) {
+                if((changed & (0x1 << (1 + 2 * i))) != 0) {
+                    writeSigned(offsets[i] - (i < m_count ? m_offsets[i] : 0));
+                }
+                if((changed & (0x1 << (2 + 2 * i))) != 0) {
+                    writeSigned(distances[i] - (i < m_count ? m_distances[i] : 0));
+                }
+            }
+        }
+        
+        System.arraycopy(offsets, 0, m_offsets, 0, count);
+        System.arraycopy(distances, 0, m_distances, 0, count);
+        m_count = count;
+        
+        int bodySize = m_position;
+        m_data = output;
+        m_position = 0;
+        writeByte(keyframe ? DeltaFrameDecoder.kKeyframe : DeltaFrameDecoder.kDelta);
+        writeVarint(bodySize);
+        System.arraycopy(m_body, 0, output, m_position, bodySize);
+        m_data = null;
+        return m_position + bodySize;
+    }
+    
+    private void writeByte(int value) {
+        m_data[m_position++] = (byte) value;
+    }
+    
+    private void writeVarint(int value) {
+        while((value & ~0x7F) != 0) {
+            writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+    
+    private void writeSigned(int value) {
+        writeVarint((value << 1) ^ (value >> 31));
+    }
+}
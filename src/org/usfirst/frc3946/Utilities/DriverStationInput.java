@@ -0,0 +1,42 @@
+package org.usfirst.frc3946.Utilities;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Reads the joysticks from the Driver Station, the input used on the robot.
+ */
+public class DriverStationInput implements InputSource {
+    
+    private static DriverStationInput m_instance;
+    
+    private DriverStation m_ds;
+    
+    /**
+     * Gets the Driver Station Input, the Driver Station itself is only looked up on the first read
+     * @return The Driver Station Input
+     */
+    public static synchronized DriverStationInput getInstance() {
+        if(m_instance == null) {
+            m_instance = new DriverStationInput();
+        }
+        return m_instance;
+    }
+    
+    private DriverStationInput() {
+    }
+    
+    public double getStickAxis(int port, int axis) {
+        return getDriverStation().getStickAxis(port, axis);
+    }
+    
+    public int getStickButtons(int port) {
+        return getDriverStation().getStickButtons(port);
+    }
+    
+    private DriverStation getDriverStation() {
+        if(m_ds == null) {
+            m_ds = DriverStation.getInstance();
+        }
+        return m_ds;
+    }
+}
@@ -0,0 +1,57 @@
+package org.usfirst.frc3946.Utilities;
+
+/**
+ * Joystick values kept in memory and set by hand, for running controller code without a Driver Station.
+ */
+public class FakeInput implements InputSource {
+    
+    private final double[][] m_axes = new double[kPorts][InputRecorder.kAxisCount];
+    private final int[] m_buttons = new int[kPorts];
+    
+    public synchronized double getStickAxis(int port, int axis) {
+        if(port < 1 || port > kPorts || axis < 1 || axis > InputRecorder.kAxisCount) {
+            return 0;
+        }
+        return m_axes[port - 1][axis - 1];
+    }
+    
+    public synchronized int getStickButtons(int port) {
+        if(port < 1 || port > kPorts) {
+            return 0;
+        }
+        return m_buttons[port - 1];
+    }
+    
+    /**
+     * Sets the Value of an Axis
+     * @param port USB Port (1 to 4)
+     * @param axis Axis Number
+     * @param value Value of Axis (-1 to 1)
+     */
+    public synchronized void setAxis(int port, int axis, double value) {
+        m_axes[port - 1][axis - 1] = value;
+    }
+    
+    /**
+     * Sets the State of a button
+     * @param port USB Port (1 to 4)
+     * @param button number of the button
+     * @param pressed State of the button
+     */
+    public synchronized void setButton(int port, int button, boolean pressed) {
+        if(pressed) {
+            m_buttons[port - 1] |= 0x1 << (button - 1);
+        } else {
+            m_buttons[port - 1] &= ~(0x1 << (button - 1));
+        }
+    }
+    
+    /**
+     * Sets the State of every button at once
+     * @param port USB Port (1 to 4)
+     * @param buttons Button bits, button 1 in the lowest bit
+     */
+    public synchronized void setButtons(int port, int buttons) {
+        m_buttons[port - 1] = buttons;
+    }
+}
@@ -0,0 +1,307 @@
+package org.usfirst.frc3946.Utilities;
+
+/**
+ * Reads every controller port once per cycle and merges them into one set of command axes and buttons.
+ * Each command axis is fed by one or more controller axes, picked between by its arbitration type.
+ * Each command button is pressed if any controller button mapped to it is pressed.
+ * Since it is an InputSource itself, controllers constructed on it read the snapshot taken by update() instead of the Driver Station.
+ */
+public class InputAggregator implements InputSource {
+    
+    /**
+     * Most command axes and command buttons
+     */
+    public static final int kMaxChannels = 16;
+    
+    /**
+     * Most controller axes or buttons feeding one command axis or button
+     */
+    public static final int kMaxSources = 4;
+    
+    /**
+     * How a command axis picks between the controller axes feeding it.
+     */
+    public static class ArbitrationType {
+        
+        /**
+         * The integer value representing this enumeration
+         */
+        public final int value;
+        private static final int kPriority_val = 0;
+        private static final int kMaxMagnitude_val = 1;
+        private static final int kOverride_val = 2;
+        
+        private ArbitrationType(int value) {
+            this.value = value;
+        }
+        
+        /**
+         * The first axis, in the order they were added, which is outside the deadband
+         */
+        public static final ArbitrationType kPriority = new ArbitrationType(kPriority_val);
+        
+        /**
+         * The axis pushed the furthest
+         */
+        public static final ArbitrationType kMaxMagnitude = new ArbitrationType(kMaxMagnitude_val);
+        
+        /**
+         * The axes of the override port while its override button is held, otherwise the other axes by priority
+         */
+        public static final ArbitrationType kOverride = new ArbitrationType(kOverride_val);
+    }
+    
+    private final InputSource m_source;
+    
+    private final double[][] m_axes = new double[kPorts][InputRecorder.kAxisCount]; //Snapshot of every port
+    private final int[] m_buttons = new int[kPorts];
+    private int m_portMask = 0; //Ports read on update
+    
+    private final int[] m_type = new int[kMaxChannels];
+    private final int[][] m_axisPort = new int[kMaxChannels][kMaxSources];
+    private final int[][] m_axisNumber = new int[kMaxChannels][kMaxSources];
+    private final int[] m_axisCount = new int[kMaxChannels];
+    private final int[] m_overridePort = new int[kMaxChannels];
+    private final int[] m_overrideButton = new int[kMaxChannels];
+    private final double[] m_output = new double[kMaxChannels];
+    
+    private final int[][] m_buttonPort = new int[kMaxChannels][kMaxSources];
+    private final int[][] m_buttonMask = new int[kMaxChannels][kMaxSources];
+    private final int[] m_buttonCount = new int[kMaxChannels];
+    private int m_commandButtons = 0;
+    
+    private double m_deadband = .05;
+    
+    /**
+     * Constructor, reads from the Driver Station
+     */
+    public InputAggregator() {
+        this(DriverStationInput.getInstance());
+    }
+    
+    /**
+     * Constructor
+     * @param source Where the controller ports are read from
+     */
+    public InputAggregator(InputSource source) {
+        m_source = source;
+    }
+    
+    /**
+     * Sets how a command axis picks between its controller axes, kPriority by default
+     * @param channel Command axis (0 to 15)
+     * @param type Arbitration Type
+     */
+    public synchronized void setArbitration(int channel, ArbitrationType type) {
+        checkChannel(channel);
+        m_type[channel] = type.value;
+    }
+    
+    /**
+     * Feeds a controller axis into a command axis, earlier axes have priority
+     * @param channel Command axis (0 to 15)
+     * @param port USB Port on DriverStation
+     * @param axis Axis Number
+     */
+    public synchronized void addAxis(int channel, int port, int axis) {
+        checkChannel(channel);
+        checkPort(port);
+        if(axis < 1 || axis > InputRecorder.kAxisCount) {
+            throw new IllegalArgumentException("Axis must be 1 to 6");
+        }
+        if(m_axisCount[channel] >= kMaxSources) {
+            throw new IllegalStateException("Too many axes on channel " + channel);
+        }
+        int i = m_axisCount[channel]++;
+        m_axisPort[channel][i] = port;
+        m_axisNumber[channel][i] = axis;
+        addPort(port);
+    }
+    
+    /**
+     * Sets the button which hands a kOverride command axis to the axes of one port while held
+     * @param channel Command axis (0 to 15)
+     * @param port USB Port of the overriding controller
+     * @param button number of the button
+     */
+    public synchronized void setOverride(int channel, int port, int button) {
+        checkChannel(channel);
+        checkPort(port);
+        checkButton(button);
+        m_overridePort[channel] = port;
+        m_overrideButton[channel] = 0x1 << (button - 1);
+        addPort(port);
+    }
+    
+    /**
+     * Feeds a controller button into a command button
+     * @param command Command button (0 to 15)
+     * @param port USB Port on DriverStation
+     * @param button number of the button
+     */
+    public synchronized void addButton(int command, int port, int button) {
+        checkChannel(command);
+        checkPort(port);
+        checkButton(button);
+        if(m_buttonCount[command] >= kMaxSources) {
+            throw new IllegalStateException("Too many buttons on command " + command);
+        }
+        int i = m_buttonCount[command]++;
+        m_buttonPort[command][i] = port;
+        m_buttonMask[command][i] = 0x1 << (button - 1);
+        addPort(port);
+    }
+    
+    /**
+     * Reads a port on update even if nothing is mapped from it, for controllers constructed on the aggregator
+     * @param port USB Port on DriverStation
+     */
+    public synchronized void addPort(int port) {
+        checkPort(port);
+        m_portMask |= 0x1 << (port - 1);
+    }
+    
+    /**
+     * Sets how far an axis has to be pushed to count for kPriority and kOverride
+     * @param deadband Deadband (0 to 1)
+     */
+    public synchronized void setDeadband(double deadband) {
+        m_deadband = deadband;
+    }
+    
+    /**
+     * Reads every port once and works out the command axes and buttons, call once every cycle
+     */
+    public synchronized void update() {
+        for(int port = 1; port <= kPorts; port++) {
+            if((m_portMask & (0x1 << (port - 1))) == 0) {
+                continue;
+            }
+            double[] axes = m_axes[port - 1];
+            for(int axis = 1; axis <= axes.length; axis++) {
+                axes[axis - 1] = m_source.getStickAxis(port, axis);
+            }
+            m_buttons[port - 1] = m_source.getStickButtons(port);
+        }
+        
+        for(int channel = 0; channel < kMaxChannels; channel++) {
+            if(m_axisCount[channel] > 0) {
+                m_output[channel] = arbitrate(channel);
+            }
+        }
+        
+        int commands = 0;
+        for(int command = 0; command < kMaxChannels; command++) {
+            for(int i = 0; i < m_buttonCount[command]; i++) {
+                if((m_buttons[m_buttonPort[command][i] - 1] & m_buttonMask[command][i]) != 0) {
+                    commands |= 0x1 << command;
+                    break;
+                }
+            }
+        }
+        m_commandButtons = commands;
+    }
+    
+    /**
+     * Gets a command axis as of the last update
+     * @param channel Command axis (0 to 15)
+     * @return Value of the axis (-1 to 1)
+     */
+    public synchronized double getAxis(int channel) {
+        return m_output[channel];
+    }
+    
+    /**
+     * Gets a command button as of the last update
+     * @param command Command button (0 to 15)
+     * @return State of the button
+     */
+    public synchronized boolean getButton(int command) {
+        return (m_commandButtons & (0x1 << command)) != 0;
+    }
+    
+    /**
+     * Gets every command button as of the last update
+     * @return Command button bits, command 0 in the lowest bit
+     */
+    public synchronized int getButtons() {
+        return m_commandButtons;
+    }
+    
+    /**
+     * Get Value from an Axis as of the last update
+     * @param port USB Port on DriverStation
+     * @param axis Axis Number
+     * @return Value from Axis (-1 to 1)
+     */
+    public synchronized double getStickAxis(int port, int axis) {
+        if(port < 1 || port > kPorts || axis < 1 || axis > InputRecorder.kAxisCount) {
+            return 0;
+        }
+        return m_axes[port - 1][axis - 1];
+    }
+    
+    /**
+     * Gets the buttons of a controller as of the last update
+     * @param port USB Port on DriverStation
+     * @return Button bits, button 1 in the lowest bit
+     */
+    public synchronized int getStickButtons(int port) {
+        if(port < 1 || port > kPorts) {
+            return 0;
+        }
+        return m_buttons[port - 1];
+    }
+    
+    private static void checkChannel(int channel) {
+        if(channel < 0 || channel >= kMaxChannels) {
+            throw new IllegalArgumentException("Channel must be 0 to 15");
+        }
+    }
+    
+    private static void checkPort(int port) {
+        if(port < 1 || port > kPorts) {
+            throw new IllegalArgumentException("Port must be 1 to 4");
+        }
+    }
+    
+    private static void checkButton(int button) {
+        if(button < 1 || button > 16) {
+            throw new IllegalArgumentException("Button must be 1 to 16");
+        }
+    }
+    
+    private double arbitrate(int channel) {
+        int[] ports = m_axisPort[channel];
+        int[] axes = m_axisNumber[channel];
+        int count = m_axisCount[channel];
+        
+        if(m_type[channel] == ArbitrationType.kMaxMagnitude.value) {
+            double output = 0;
+            for(int i = 0; i < count; i++) {
+                double value = m_axes[ports[i] - 1][axes[i] - 1];
+                if(Math.abs(value) > Math.abs(output)) {
+                    output = value;
+                }
+            }
+            return output;
+        }
+        
+        int overridePort = 0; //Port whose axes are skipped, or the only ones used while overriding
+        boolean overriding = false;
+        if(m_type[channel] == ArbitrationType.kOverride.value && m_overridePort[channel] != 0) {
+            overridePort = m_overridePort[channel];
+            overriding = (m_buttons[overridePort - 1] & m_overrideButton[channel]) != 0;
+        }
+        for(int i = 0; i < count; i++) {
+            if(overridePort != 0 && (ports[i] == overridePort) != overriding) {
+                continue;
+            }
+            double value = m_axes[ports[i] - 1][axes[i] - 1];
+            if(Math.abs(value) > m_deadband) {
+                return value;
+            }
+        }
+        return 0;
+    }
+}
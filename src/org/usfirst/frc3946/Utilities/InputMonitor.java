@@ -0,0 +1,196 @@
+package org.usfirst.frc3946.Utilities;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Utility;
+
+/**
+ * Measures how long controller input takes, by sitting between the controllers and their InputSource.
+ * Construct the controllers on an InputMonitor to instrument them, every read they make is timed and checked for a changed value.
+ * It keeps three histograms: the cost of each read, the total read cost between two Driver Station packets,
+ * and the time from a packet arriving to the first read which saw a value change in it.
+ * Packet arrival is stamped by packetReceived(), which the watcher thread from startPacketWatcher() calls on the robot.
+ */
+public class InputMonitor implements InputSource {
+    
+    /**
+     * A copy of the histograms at one point in time.
+     */
+    public static class Snapshot {
+        
+        /**
+         * Time of each read in microseconds
+         */
+        public final LatencyHistogram readCost = new LatencyHistogram();
+        
+        /**
+         * Total read time between two packets in microseconds
+         */
+        public final LatencyHistogram cycleCost = new LatencyHistogram();
+        
+        /**
+         * Time from a packet arriving to a change in it first being read in microseconds
+         */
+        public final LatencyHistogram changeLatency = new LatencyHistogram();
+        
+        /**
+         * Number of packets received
+         */
+        public int packets;
+        
+        /**
+         * Number of reads which returned a different value than the last read of the same axis or buttons
+         */
+        public int changes;
+    }
+    
+    private final InputSource m_source;
+    
+    private final double[][] m_axes = new double[kPorts][InputRecorder.kAxisCount]; //Last value read, to spot changes
+    private final int[] m_buttons = new int[kPorts];
+    
+    private final LatencyHistogram m_readCost = new LatencyHistogram();
+    private final LatencyHistogram m_cycleCost = new LatencyHistogram();
+    private final LatencyHistogram m_changeLatency = new LatencyHistogram();
+    private int m_packets = 0;
+    private int m_changes = 0;
+    
+    private long m_packetTime = 0; //When the last packet arrived
+    private boolean m_changeSeen = true; //If a change has already been timed for the last packet
+    private long m_cycleReadTime = 0;
+    
+    private Thread m_watcher;
+    private boolean m_watching = false;
+    
+    /**
+     * Constructor, instruments the Driver Station
+     */
+    public InputMonitor() {
+        this(DriverStationInput.getInstance());
+    }
+    
+    /**
+     * Constructor
+     * @param source Input to instrument
+     */
+    public InputMonitor(InputSource source) {
+        m_source = source;
+    }
+    
+    public double getStickAxis(int port, int axis) {
+        long start = now();
+        double value = m_source.getStickAxis(port, axis);
+        long end = now();
+        synchronized(this) {
+            timeRead(start, end);
+            if(port >= 1 && port <= kPorts && axis >= 1 && axis <= InputRecorder.kAxisCount && m_axes[port - 1][axis - 1] != value) {
+                m_axes[port - 1][axis - 1] = value;
+                changed(end);
+            }
+        }
+        return value;
+    }
+    
+    public int getStickButtons(int port) {
+        long start = now();
+        int value = m_source.getStickButtons(port);
+        long end = now();
+        synchronized(this) {
+            timeRead(start, end);
+            if(port >= 1 && port <= kPorts && m_buttons[port - 1] != value) {
+                m_buttons[port - 1] = value;
+                changed(end);
+            }
+        }
+        return value;
+    }
+    
+    /**
+     * Marks the arrival of a Driver Station packet, called by the packet watcher, or by hand off the robot
+     */
+    public synchronized void packetReceived() {
+        if(m_packets > 0) {
+            m_cycleCost.record(m_cycleReadTime);
+        }
+        m_cycleReadTime = 0;
+        m_packetTime = now();
+        m_changeSeen = false;
+        m_packets++;
+    }
+    
+    /**
+     * Starts a thread which waits on the Driver Station and stamps each packet as it arrives
+     */
+    public synchronized void startPacketWatcher() {
+        if(m_watching) {
+            return;
+        }
+        m_watching = true;
+        m_watcher = new Thread("InputMonitor") {
+            public void run() {
+                DriverStation ds = DriverStation.getInstance();
+                while(isWatching()) {
+                    ds.waitForData();
+                    packetReceived();
+                }
+            }
+        };
+        m_watcher.setPriority(Thread.MAX_PRIORITY); //Stamp the packet as close to its arrival as possible
+        m_watcher.start();
+    }
+    
+    /**
+     * Stops the packet watcher after the next packet
+     */
+    public synchronized void stopPacketWatcher() {
+        m_watching = false;
+    }
+    
+    /**
+     * Copies the histograms and counts
+     * @param snapshot Snapshot to overwrite
+     */
+    public synchronized void getSnapshot(Snapshot snapshot) {
+        m_readCost.copyTo(snapshot.readCost);
+        m_cycleCost.copyTo(snapshot.cycleCost);
+        m_changeLatency.copyTo(snapshot.changeLatency);
+        snapshot.packets = m_packets;
+        snapshot.changes = m_changes;
+    }
+    
+    /**
+     * Clears the histograms and counts
+     */
+    public synchronized void reset() {
+        m_readCost.reset();
+        m_cycleCost.reset();
+        m_changeLatency.reset();
+        m_packets = 0;
+        m_changes = 0;
+        m_cycleReadTime = 0;
+    }
+    
+    /**
+     * Current time, override this to use another clock off the robot
+     * @return Time in microseconds
+     */
+    protected long now() {
+        return Utility.getFPGATime();
+    }
+    
+    private synchronized boolean isWatching() {
+        return m_watching;
+    }
+    
+    private void timeRead(long start, long end) {
+        m_readCost.record(end - start);
+        m_cycleReadTime += end - start;
+    }
+    
+    private void changed(long time) {
+        m_changes++;
+        if(!m_changeSeen && m_packets > 0) { //Only the first change in a packet says how long it took to be seen
+            m_changeLatency.record(time - m_packetTime);
+            m_changeSeen = true;
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package org.usfirst.frc3946.Utilities;
+
+import edu.wpi.first.wpilibj.GenericHID;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records the axes and buttons of a controller once per cycle into a compact binary log, which can be played back with InputReplay.
+ * Every cycle only stores what changed since the previous cycle, so a controller that is not being touched costs a single byte per cycle.
+ * Records are appended to a buffer allocated up front. Recording to a stream uses two, when one fills they swap and a low priority
+ * thread writes the full one in a single write, the same as TelemetryLogger, so recording never waits on the stream.
+ * If the writer falls behind so both buffers are full, cycles are dropped and counted instead of blocking the caller.
+ */
+public class InputRecorder {
+    
+    /**
+     * Number of axes recorded for every controller
+     */
+    public static final int kAxisCount = 6;
+    
+    static final byte kMagic0 = 'R'; //Start of every recording
+    static final byte kMagic1 = 'C';
+    static final byte kVersion = 1;
+    static final int kHeaderSize = 4; //Magic, Version, Axis Count
+    static final int kButtonsChanged = 0x40; //Flag bit, bits 0-5 flag the changed axes
+    
+    private static final int kMaxRecordSize = 1 + kAxisCount + 2; //Flags, every axis, button bits
+    
+    private final byte[][] m_buffers = new byte[2][]; //Records waiting to be written, only the first when recording to memory
+    private int m_active = 0; //Buffer being filled
+    private int m_length = 0;
+    private int m_bufferCycles = 0; //Cycles in the buffer being filled
+    private int m_fullLength = -1; //Length of the other buffer while it waits to be written, -1 when free
+    private int m_fullCycles = 0;
+    private final OutputStream m_os;
+    private boolean m_running = true;
+    private boolean m_writerDone = false;
+    private boolean m_failed = false;
+    
+    private final int[] m_axes = new int[kAxisCount]; //Last recorded values, what the next cycle is compared against
+    private int m_buttons = 0;
+    
+    private int m_cycles = 0;
+    private int m_dropped = 0; //Cycles lost because the buffer was full or the stream failed
+    
+    /**
+     * Thread in which full buffers are written to the stream.
+     */
+    private class RecorderWriter extends Thread {
+        
+        public RecorderWriter() {
+            super("RecorderWriter");
+        }
+        
+        public void run() {
+            writeBuffers();
+        }
+    }
+    
+    /**
+     * Constructor, keeps the recording in memory only, it stops recording once the buffer is full.
+     * A 2.5 minute match at 50 cycles a second needs at most 67.5k bytes.
+     * @param bufferSize Size of the buffer in bytes
+     */
+    public InputRecorder(int bufferSize) {
+        this(bufferSize, null);
+    }
+    
+    /**
+     * Constructor
+     * @param bufferSize Size of each of the two buffers in bytes, written to the stream every time one fills
+     * @param os Stream the recording is written to, starts the writer thread
+     */
+    public InputRecorder(int bufferSize, OutputStream os) {
+        if(bufferSize < kHeaderSize + kMaxRecordSize) {
+            throw new IllegalArgumentException("Buffer too small for a recording");
+        }
+        m_buffers[0] = new byte[bufferSize];
+        m_os = os;
+        
+        m_buffers[0][m_length++] = kMagic0;
+        m_buffers[0][m_length++] = kMagic1;
+        m_buffers[0][m_length++] = kVersion;
+        m_buffers[0][m_length++] = kAxisCount;
+        
+        if(os != null) {
+            m_buffers[1] = new byte[bufferSize];
+            Thread writer = new RecorderWriter();
+            writer.setPriority(Thread.MIN_PRIORITY);
+            writer.start();
+        }
+    }
+    
+    /**
+     * Records one cycle of an Xbox Controller, call this once every cycle
+     * @param controller Controller to record
+     */
+    public synchronized void record(XboxController controller) {
+        record(controller, controller.getRawButtons());
+    }
+    
+    /**
+     * Records one cycle of a Logitech Controller, call this once every cycle
+     * @param controller Controller to record
+     */
+    public synchronized void record(LogitechController controller) {
+        record(controller, controller.getRawButtons());
+    }
+    
+    private void record(GenericHID hid, int buttons) {
+        if(!reserve()) {
+            m_dropped++;
+            return;
+        }
+        
+        byte[] buffer = m_buffers[m_active];
+        int flagsIndex = m_length++;
+        int flags = 0;
+        for(int i = 0; i < kAxisCount; i++) {
+            int value = encodeAxis(hid.getRawAxis(i + 1));
+            if(value != m_axes[i]) { //Only changed axes are stored
+                m_axes[i] = value;
+                buffer[m_length++] = (byte) value;
+                flags |= 0x1 << i;
+            }
+        }
+        
+        int changed = (buttons ^ m_buttons) & 0xFFFF;
+        if(changed != 0) { //Stored as the bits which flipped
+            m_buttons = buttons;
+            buffer[m_length++] = (byte) (changed >> 8);
+            buffer[m_length++] = (byte) changed;
+            flags |= kButtonsChanged;
+        }
+        buffer[flagsIndex] = (byte) flags;
+        m_bufferCycles++;
+        m_cycles++;
+    }
+    
+    /**
+     * Writes the buffered records to the stream and waits until they are written, does nothing when recording to memory.
+     * It waits on the stream, so call it between matches rather than every cycle.
+     * @throws IOException If a write to the stream failed since the recording started
+     */
+    public synchronized void flush() throws IOException {
+        if(m_os == null) {
+            return;
+        }
+        waitForWriter();
+        if(m_length > 0 && m_running) {
+            swap();
+            waitForWriter();
+        }
+        if(m_failed) {
+            throw new IOException("Recording could not be written");
+        }
+    }
+    
+    /**
+     * Writes out what is left in the buffer and closes the stream once the writer thread is done
+     * @throws IOException If a write to the stream or closing it failed
+     */
+    public synchronized void close() throws IOException {
+        if(m_os == null || !m_running) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            m_running = false;
+            notifyAll();
+            while(!m_writerDone) {
+                try {
+                    wait();
+                } catch(InterruptedException ex) {}
+            }
+        }
+        if(m_failed) {
+            throw new IOException("Recording could not be written");
+        }
+    }
+    
+    /**
+     * If a write to the stream failed, the cycles in that buffer are counted as dropped
+     * @return if writing failed
+     */
+    public synchronized boolean hasFailed() {
+        return m_failed;
+    }
+    
+    /**
+     * Gets a copy of the recording, only complete when recording to memory
+     * @return Bytes of the recording still in the buffer
+     */
+    public synchronized byte[] toByteArray() {
+        byte[] output = new byte[m_length];
+        System.arraycopy(m_buffers[m_active], 0, output, 0, m_length);
+        return output;
+    }
+    
+    /**
+     * Number of cycles recorded
+     * @return Cycles recorded
+     */
+    public synchronized int getCycles() {
+        return m_cycles;
+    }
+    
+    /**
+     * Number of cycles that could not be recorded
+     * @return Cycles dropped
+     */
+    public synchronized int getDropped() {
+        return m_dropped;
+    }
+    
+    /**
+     * Makes sure there is room for a full record in the active buffer
+     * @return false if the cycle has to be dropped
+     */
+    private boolean reserve() {
+        if(!m_running) {
+            return false;
+        }
+        if(m_length + kMaxRecordSize <= m_buffers[m_active].length) {
+            return true;
+        }
+        if(m_os == null || m_fullLength >= 0) { //Memory is full, or both buffers are
+            return false;
+        }
+        swap();
+        return true;
+    }
+    
+    private void swap() {
+        m_fullLength = m_length;
+        m_fullCycles = m_bufferCycles;
+        m_active ^= 1;
+        m_length = 0;
+        m_bufferCycles = 0;
+        notifyAll();
+    }
+    
+    private void waitForWriter() {
+        while(m_fullLength >= 0) {
+            try {
+                wait();
+            } catch(InterruptedException ex) {}
+        }
+    }
+    
+    private void writeBuffers() {
+        while(true) {
+            byte[] buffer;
+            int length;
+            synchronized(this) {
+                while(m_fullLength < 0 && m_running) {
+                    try {
+                        wait();
+                    } catch(InterruptedException ex) {}
+                }
+                if(m_fullLength < 0) { //Closed with nothing left to write
+                    break;
+                }
+                buffer = m_buffers[m_active ^ 1];
+                length = m_fullLength;
+            }
+            boolean failed = false;
+            try { //Written outside the lock so recording carries on meanwhile
+                m_os.write(buffer, 0, length);
+                m_os.flush();
+            } catch(IOException ex) {
+                failed = true;
+            }
+            synchronized(this) {
+                if(failed) {
+                    m_failed = true;
+                    m_dropped += m_fullCycles;
+                }
+                m_fullLength = -1;
+                notifyAll();
+            }
+        }
+        boolean failed = false;
+        try {
+            m_os.close();
+        } catch(IOException ex) {
+            failed = true;
+        }
+        synchronized(this) {
+            m_failed |= failed;
+            m_writerDone = true;
+            notifyAll();
+        }
+    }
+    
+    /**
+     * Converts an axis value to the signed byte the Driver Station sent it as
+     * @param value Value of the axis (-1 to 1)
+     * @return Axis as a byte (-128 to 127)
+     */
+    static int encodeAxis(double value) {
+        int encoded;
+        if(value < 0) {
+            encoded = (int) Math.floor(value * 128 + .5);
+        } else {
+            encoded = (int) Math.floor(value * 127 + .5);
+        }
+        return Math.max(-128, Math.min(127, encoded));
+    }
+    
+    /**
+     * Converts a recorded byte back to the value the Driver Station reported
+     * @param value Axis as a byte (-128 to 127)
+     * @return Value of the axis (-1 to 1)
+     */
+    static double decodeAxis(int value) {
+        if(value < 0) {
+            return value / 128.0;
+        } else {
+            return value / 127.0;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.usfirst.frc3946.Utilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Plays back a recording made by InputRecorder, one cycle at a time.
+ * The recording is read from the stream as it is played, so only a small read buffer is kept in memory.
+ * Play it through a controller with ReplayInput and call step() once every cycle, the controller's getters will return the recorded values.
+ */
+public class InputReplay {
+    
+    private final InputStream m_is;
+    private final byte[] m_readBuffer = new byte[256]; //Chunk of the stream being decoded
+    private int m_readLength = 0;
+    private int m_readIndex = 0;
+    
+    private final int[] m_axes = new int[InputRecorder.kAxisCount];
+    private int m_buttons = 0;
+    
+    private int m_cycle = 0;
+    private boolean m_finished = false;
+    
+    /**
+     * Constructor
+     * @param data Bytes of a recording
+     * @throws IOException If it is not a recording
+     */
+    public InputReplay(byte[] data) throws IOException {
+        this(new ByteArrayInputStream(data));
+    }
+    
+    /**
+     * Constructor
+     * @param is Stream to read the recording from
+     * @throws IOException If it is not a recording or could not be read
+     */
+    public InputReplay(InputStream is) throws IOException {
+        m_is = is;
+        if(nextByte() != InputRecorder.kMagic0 || nextByte() != InputRecorder.kMagic1) {
+            throw new IOException("Not an input recording");
+        }
+        if(nextByte() != InputRecorder.kVersion) {
+            throw new IOException("Unsupported input recording version");
+        }
+        if(nextByte() != InputRecorder.kAxisCount) {
+            throw new IOException("Unsupported input recording axis count");
+        }
+    }
+    
+    /**
+     * Advances to the next recorded cycle, call this once every cycle.
+     * Once the recording runs out the values of the last cycle are kept.
+     * @return false if the recording is finished
+     */
+    public synchronized boolean step() {
+        if(m_finished) {
+            return false;
+        }
+        try {
+            int flags = nextByte();
+            if(flags < 0) { //End of the recording
+                m_finished = true;
+                return false;
+            }
+            for(int i = 0; i < InputRecorder.kAxisCount; i++) {
+                if((flags & (0x1 << i)) != 0) {
+                    m_axes[i] = (byte) nextRequiredByte(); //Sign extend
+                }
+            }
+            if((flags & InputRecorder.kButtonsChanged) != 0) {
+                int changed = nextRequiredByte() << 8;
+                changed |= nextRequiredByte();
+                m_buttons ^= changed;
+            }
+        } catch(IOException ex) { //Treat a cut off or unreadable recording as finished
+            m_finished = true;
+            return false;
+        }
+        m_cycle++;
+        return true;
+    }
+    
+    /**
+     * Get Value from an Axis for the current cycle
+     * @param axis Axis Number
+     * @return Value from Axis (-1 to 1)
+     */
+    public synchronized double getAxis(int axis) {
+        if(axis < 1 || axis > InputRecorder.kAxisCount) {
+            return 0;
+        }
+        return InputRecorder.decodeAxis(m_axes[axis - 1]);
+    }
+    
+    /**
+     * Gets the buttons for the current cycle
+     * @return Button bits, button 1 in the lowest bit
+     */
+    public synchronized int getButtons() {
+        return m_buttons;
+    }
+    
+    /**
+     * Number of cycles played so far
+     * @return Current cycle
+     */
+    public synchronized int getCycle() {
+        return m_cycle;
+    }
+    
+    /**
+     * If the whole recording has been played
+     * @return if the recording is finished
+     */
+    public synchronized boolean isFinished() {
+        return m_finished;
+    }
+    
+    private int nextRequiredByte() throws IOException {
+        int value = nextByte();
+        if(value < 0) {
+            throw new IOException("Input recording cut off");
+        }
+        return value;
+    }
+    
+    /**
+     * Reads the next byte, refilling the read buffer from the stream as needed
+     * @return the byte (0 to 255), or -1 at the end of the stream
+     * @throws IOException
+     */
+    private int nextByte() throws IOException {
+        if(m_readIndex >= m_readLength) {
+            m_readLength = m_is.read(m_readBuffer, 0, m_readBuffer.length);
+            m_readIndex = 0;
+            if(m_readLength <= 0) {
+                m_readLength = 0;
+                return -1;
+            }
+        }
+        return m_readBuffer[m_readIndex++] & 0xFF;
+    }
+}
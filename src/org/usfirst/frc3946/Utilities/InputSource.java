@@ -0,0 +1,28 @@
+package org.usfirst.frc3946.Utilities;
+
+/**
+ * Where the controllers get their axis and button values from.
+ * The robot uses DriverStationInput, tests and benchmarks off the robot can use FakeInput or ReplayInput instead.
+ */
+public interface InputSource {
+    
+    /**
+     * Number of joystick ports
+     */
+    public static final int kPorts = 4;
+    
+    /**
+     * Get Value from an Axis of a joystick
+     * @param port USB Port on DriverStation (1 to 4)
+     * @param axis Axis Number
+     * @return Value from Axis (-1 to 1)
+     */
+    public double getStickAxis(int port, int axis);
+    
+    /**
+     * Gets the state of every button of a joystick
+     * @param port USB Port on DriverStation (1 to 4)
+     * @return Button bits, button 1 in the lowest bit
+     */
+    public int getStickButtons(int port);
+}
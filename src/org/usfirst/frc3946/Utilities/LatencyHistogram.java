@@ -0,0 +1,128 @@
+package org.usfirst.frc3946.Utilities;
+
+/**
+ * Counts times in microseconds into power of two buckets, bucket n holding times from 2^(n-1) up to 2^n.
+ * All storage is allocated up front, so recording never creates garbage. It is not synchronized, the owner has to lock around it.
+ */
+public class LatencyHistogram {
+    
+    /**
+     * Number of buckets, the last one holds everything over 2^30 microseconds
+     */
+    public static final int kBuckets = 32;
+    
+    private final int[] m_buckets = new int[kBuckets];
+    private int m_count = 0;
+    private long m_sum = 0;
+    private long m_min = Long.MAX_VALUE;
+    private long m_max = 0;
+    
+    /**
+     * Counts a time
+     * @param micros Time in microseconds
+     */
+    public void record(long micros) {
+        if(micros < 0) {
+            micros = 0;
+        }
+        int bucket = 0;
+        for(long value = micros; value > 0 && bucket < kBuckets - 1; value >>= 1) {
+            bucket++;
+        }
+        m_buckets[bucket]++;
+        m_count++;
+        m_sum += micros;
+        if(micros < m_min) {
+            m_min = micros;
+        }
+        if(micros > m_max) {
+            m_max = micros;
+        }
+    }
+    
+    /**
+     * Number of times counted
+     * @return Count
+     */
+    public int getCount() {
+        return m_count;
+    }
+    
+    /**
+     * Shortest time counted
+     * @return Time in microseconds, 0 if nothing was counted
+     */
+    public long getMin() {
+        return m_count == 0 ? 0 : m_min;
+    }
+    
+    /**
+     * Longest time counted
+     * @return Time in microseconds
+     */
+    public long getMax() {
+        return m_max;
+    }
+    
+    /**
+     * Average of the times counted
+     * @return Time in microseconds, 0 if nothing was counted
+     */
+    public double getMean() {
+        return m_count == 0 ? 0 : (double) m_sum / m_count;
+    }
+    
+    /**
+     * Estimates a percentile, as the upper edge of the bucket it falls in
+     * @param fraction Fraction of times at or below the result (0 to 1), such as .99
+     * @return Time in microseconds, no more than the longest time counted
+     */
+    public long getPercentile(double fraction) {
+        if(m_count == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * m_count);
+        int seen = 0;
+        for(int i = 0; i < kBuckets; i++) {
+            seen += m_buckets[i];
+            if(seen >= rank && seen > 0) {
+                return Math.min(i == 0 ? 0 : (1L << i) - 1, m_max);
+            }
+        }
+        return m_max;
+    }
+    
+    /**
+     * Number of times in a bucket
+     * @param bucket Bucket (0 to 31)
+     * @return Count
+     */
+    public int getBucket(int bucket) {
+        return m_buckets[bucket];
+    }
+    
+    /**
+     * Copies every count into another histogram
+     * @param other Histogram to overwrite
+     */
+    public void copyTo(LatencyHistogram other) {
+        System.arraycopy(m_buckets, 0, other.m_buckets, 0, kBuckets);
+        other.m_count = m_count;
+        other.m_sum = m_sum;
+        other.m_min = m_min;
+        other.m_max = m_max;
+    }
+    
+    /**
+     * Clears every count
+     */
+    public void reset() {
+        for(int i = 0; i < kBuckets; i++) {
+            m_buckets[i] = 0;
+        }
+        m_count = 0;
+        m_sum = 0;
+        m_min = Long.MAX_VALUE;
+        m_max = 0;
+    }
+}
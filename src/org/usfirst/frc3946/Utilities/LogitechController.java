@@ -1,6 +1,5 @@
 package org.usfirst.frc3946.Utilities;
 
-import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.GenericHID;
 import edu.wpi.first.wpilibj.parsing.IInputOutput;
 
@@ -10,7 +9,7 @@ import edu.wpi.first.wpilibj.parsing.IInputOutput;
  */
 public class LogitechController extends GenericHID implements IInputOutput {
     
-    private DriverStation m_ds;
+    private final InputSource m_input;
     private final int m_port;
     
     /**
@@ -157,9 +156,18 @@ public class LogitechController extends GenericHID implements IInputOutput {
      * @param port USB Port on DriverStation
      */
     public LogitechController(int port) {
+        this(port, DriverStationInput.getInstance());
+    }
+    
+    /**
+     * Constructor
+     * @param port USB Port on DriverStation
+     * @param input Source of the axis and button values
+     */
+    public LogitechController(int port, InputSource input) {
         super();
         m_port = port;
-        m_ds = DriverStation.getInstance();
+        m_input = input;
     }
     
     /**
@@ -168,7 +176,7 @@ public class LogitechController extends GenericHID implements IInputOutput {
      * @return Value from Axis (-1 to 1)
      */
     public double getRawAxis(int axis) {
-        return m_ds.getStickAxis(m_port, axis);
+        return m_input.getStickAxis(m_port, axis);
     }
     
     /**
@@ -235,13 +243,21 @@ public class LogitechController extends GenericHID implements IInputOutput {
         return 0;
     }
     
+    /**
+     * Gets the direction the D-Pad is pointed
+     * @return Direction of the D-Pad
+     */
+    public DPad.Direction getDPad() {
+        return DPad.getDirection(getAxis(AxisType.kDLeftRight), getAxis(AxisType.kDUpDown));
+    }
+    
     /**
      * Gets value from a button
      * @param button number of the button 
      * @return State of the button
      */
     public boolean getRawButton(int button) {
-        return ((0x1 << (button - 1)) & m_ds.getStickButtons(m_port)) != 0;
+        return ((0x1 << (button - 1)) & m_input.getStickButtons(m_port)) != 0;
     }
     
     /**
@@ -253,6 +269,14 @@ public class LogitechController extends GenericHID implements IInputOutput {
         return getRawButton(button.value);
     }
     
+    /**
+     * Gets the state of every button at once
+     * @return Button bits, button 1 in the lowest bit
+     */
+    public int getRawButtons() {
+        return m_input.getStickButtons(m_port);
+    }
+    
     /**
      * Get Trigger Button
      * @param hand Hand associated with button
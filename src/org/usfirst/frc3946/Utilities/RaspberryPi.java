@@ -16,22 +16,36 @@ import javax.microedition.io.SocketConnection;
  */
 public class RaspberryPi {
     
-    private String url = "socket://10.39.46.12:10000"; //change to use team's selected IP and Port
-    private int bufferSize = 64; //If you need more bytes than this, go for it, but wow, lots of data.
-    private char delimiter = ','; //The character used to separate data in the socket stream.
+    /**
+     * First character of a text frame listing several targets, "#count,offset,distance,offset,distance..."
+     */
+    public static final char kTargetList = '#';
+    
+    private final RaspberryPiConfig m_config; //Url, buffer size, delimiter and rates
     
+    private final Object m_socketLock = new Object(); //Guards the connection and buffers, so waiting on the Pi never blocks the robot's calls
     private SocketConnection m_socket; //Connection from which the Input and Output streams are created
     private InputStream m_is;
     private OutputStream m_os;
     
-    byte[] m_receivedData; //The bytes received from the Socket
     String m_rawData; //String data to be parsed
+    private byte[] m_frameData = new byte[0]; //The bytes received from the Socket, reused between frames
+    private char[] m_frameChars = new char[0]; //The same bytes as chars, for building m_rawData
+    private final byte[] m_deltaData = new byte[DeltaFrameDecoder.kMaxFrameSize]; //Delta mode bytes not yet decoded, the start of the next frame
+    private int m_deltaLength = 0;
+    private long m_unanswered = 0; //When the oldest request the Pi has not answered yet was sent, 0 if none, to notice a connection which has gone quiet
+    private int m_framesReceived = 0; //Frames and bytes read, for comparing the frame modes
+    private long m_bytesReceived = 0;
+    private int m_reconnects = 0; //Connections dropped because of an error
+    private int m_threadErrors = 0; //Unexpected exceptions the socket thread survived
         
     private boolean m_connected = false; //if the pi is connected
     
     Thread m_thread;
     private boolean m_enabled =false;
     private boolean m_run = true;
+    private TelemetryLogger m_telemetry; //Where every sample is logged, if anywhere
+    private VisionListener[] m_listeners = new VisionListener[0]; //Replaced whole on change, so the thread can call them without locking
     
     /**
      * Used to interface the RaspberryPi's Thread to the Robot's Subsystem and Commands
@@ -44,22 +58,239 @@ public class RaspberryPi {
         private static double m_time = 0; //when the last report was filed
         private static boolean m_report = false;  //if a report was filed previously
         
+        private static int[] m_targetOffsets = new int[0]; //Nearest targets in the last frame, nearest first, allocated once by setMaxTargets
+        private static int[] m_targetDistances = new int[0];
+        private static int m_targetCount = 0;
+        
+        private static double m_filteredDistance = 0; //distance and offset after the VisionFilter
+        private static double m_filteredOffset = 0;
+        private static double m_confidence = 0; //how well the recent samples agree, 0 to 1
+        
+        private static int m_sequence = 0; //number of the last complete frame
+        private static VisionFrame m_frame = new VisionFrame(0); //values as of the last complete frame, what getFrame copies
+        
+        private static double m_publishPeriod = 0; //Least time between SmartDashboard updates of each value
+        private static final double[] m_published = new double[6]; //When each value was last put on the SmartDashboard
+        private static final boolean[] m_pending = new boolean[6]; //Values changed since, held back by the publish period
+        private static final int kReport = 0;
+        private static final int kDistance = 1;
+        private static final int kOffset = 2;
+        private static final int kTime = 3;
+        private static final int kTargets = 4;
+        private static final int kFiltered = 5;
+        
         public static synchronized void setReport(boolean report) {
             m_report = report;
-            SmartDashboard.putBoolean("PiReport", m_report);
+            publish(kReport);
         }
         
         public static synchronized void setDistance(int distance) {
             m_distance = distance;
-            SmartDashboard.putNumber("PiDistance", m_distance);
+            publish(kDistance);
         }
         public static synchronized void setOffset(int offset) {
             m_offset = offset;
-            SmartDashboard.putNumber("PiOffset", m_offset);
+            publish(kOffset);
         }
         public static synchronized void setTime(double time) {
             m_time = time;
-            SmartDashboard.putNumber("PiTime", m_time);
+            publish(kTime);
+        }
+        
+        /**
+         * Stores the filtered distance and offset
+         * @param distance Filtered distance
+         * @param offset Filtered offset
+         * @param confidence How well the recent samples agree (0 to 1)
+         */
+        public static synchronized void setFiltered(double distance, double offset, double confidence) {
+            m_filteredDistance = distance;
+            m_filteredOffset = offset;
+            m_confidence = confidence;
+            publish(kFiltered);
+        }
+        
+        /**
+         * Sets aside room for the targets of a frame, frames with more targets only keep the nearest ones
+         * @param max Most targets kept from a frame
+         */
+        public static synchronized void setMaxTargets(int max) {
+            if(max != m_targetOffsets.length) {
+                m_targetOffsets = new int[max];
+                m_targetDistances = new int[max];
+                VisionFrame frame = new VisionFrame(max);
+                copyFrame(m_frame, frame);
+                m_frame = frame;
+            }
+            m_targetCount = 0;
+        }
+        
+        public static synchronized int getMaxTargets() {
+            return m_targetOffsets.length;
+        }
+        
+        /**
+         * Stores the targets of a frame, keeping the nearest of them in the target slots sorted by distance
+         * @param offsets Offset of each target
+         * @param distances Distance of each target
+         * @param count Number of targets, all of them are looked at even if there are more than the slots
+         */
+        public static synchronized void setTargets(int[] offsets, int[] distances, int count) {
+            int slots = m_targetOffsets.length;
+            int kept = 0;
+            for(int i = 0; i < count && slots > 0; i++) {
+                if(kept == slots && distances[i] >= m_targetDistances[slots - 1]) { //Farther than every target kept
+                    continue;
+                }
+                int j = Math.min(kept, slots - 1); //Insertion sort, the farthest target falls off the end when full
+                while(j > 0 && m_targetDistances[j - 1] > distances[i]) {
+                    m_targetOffsets[j] = m_targetOffsets[j - 1];
+                    m_targetDistances[j] = m_targetDistances[j - 1];
+                    j--;
+                }
+                m_targetOffsets[j] = offsets[i];
+                m_targetDistances[j] = distances[i];
+                kept = Math.min(kept + 1, slots);
+            }
+            m_targetCount = kept;
+            publish(kTargets);
+        }
+        
+        /**
+         * Marks the values stored since the last frame as a complete frame, copies them for getFrame(), and wakes anything waiting for one
+         * @return Sequence number of the frame
+         */
+        public static synchronized int frameComplete() {
+            m_sequence++;
+            m_frame.sequence = m_sequence;
+            m_frame.report = m_report;
+            m_frame.time = m_time;
+            m_frame.distance = m_distance;
+            m_frame.offset = m_offset;
+            m_frame.filteredDistance = m_filteredDistance;
+            m_frame.filteredOffset = m_filteredOffset;
+            m_frame.confidence = m_confidence;
+            m_frame.targetCount = m_targetCount;
+            System.arraycopy(m_targetOffsets, 0, m_frame.targetOffsets, 0, m_targetCount);
+            System.arraycopy(m_targetDistances, 0, m_frame.targetDistances, 0, m_targetCount);
+            DataKeeper.class.notifyAll();
+            return m_sequence;
+        }
+        
+        /**
+         * Copies the values of the latest complete frame, including its targets
+         * @param frame Frame to overwrite, it keeps only as many targets as it has room for
+         */
+        public static synchronized void getFrame(VisionFrame frame) {
+            copyFrame(m_frame, frame);
+        }
+        
+        private static void copyFrame(VisionFrame from, VisionFrame to) {
+            to.sequence = from.sequence;
+            to.report = from.report;
+            to.time = from.time;
+            to.distance = from.distance;
+            to.offset = from.offset;
+            to.filteredDistance = from.filteredDistance;
+            to.filteredOffset = from.filteredOffset;
+            to.confidence = from.confidence;
+            to.targetCount = Math.min(from.targetCount, to.targetOffsets.length);
+            System.arraycopy(from.targetOffsets, 0, to.targetOffsets, 0, to.targetCount);
+            System.arraycopy(from.targetDistances, 0, to.targetDistances, 0, to.targetCount);
+        }
+        
+        /**
+         * Waits for a frame newer than the given one and copies it.
+         * Only the latest frame is kept, so a consumer slower than the Pi skips frames instead of falling behind.
+         * @param frame Last frame seen, overwritten with the new frame
+         * @param timeout Longest time to wait in milliseconds
+         * @return if a new frame arrived, the frame is left alone if not
+         */
+        public static synchronized boolean waitForFrame(VisionFrame frame, long timeout) {
+            if(waitForSequence(frame.sequence, timeout) == frame.sequence) {
+                return false;
+            }
+            getFrame(frame);
+            return true;
+        }
+        
+        /**
+         * Waits until there is a frame newer than the given sequence number
+         * @param sequence Sequence number of the last frame seen
+         * @param timeout Longest time to wait in milliseconds
+         * @return Sequence number of the latest frame, the same as given if none arrived in time
+         */
+        public static synchronized int waitForSequence(int sequence, long timeout) {
+            long deadline = System.currentTimeMillis() + timeout;
+            long remaining = timeout;
+            while(m_sequence == sequence && remaining > 0) {
+                try {
+                    DataKeeper.class.wait(remaining);
+                } catch(InterruptedException ex) {
+                    Thread.currentThread().interrupt(); //Leave it for the caller to see
+                    break;
+                }
+                remaining = deadline - System.currentTimeMillis();
+            }
+            return m_sequence;
+        }
+        
+        public static synchronized int getSequence() {
+            return m_sequence;
+        }
+        
+        /**
+         * Limits how often the values are put on the SmartDashboard
+         * @param period Least time between updates in seconds, 0 to publish every value
+         */
+        public static synchronized void setPublishPeriod(double period) {
+            m_publishPeriod = period;
+        }
+        
+        /**
+         * Puts the values held back by the publish period on the SmartDashboard once their period is up,
+         * so the last value before updates stop still gets there. The socket thread calls this every loop.
+         */
+        public static synchronized void publishPending() {
+            for(int i = 0; i < m_pending.length; i++) {
+                if(m_pending[i]) {
+                    publish(i);
+                }
+            }
+        }
+        
+        private static void publish(int value) {
+            if(m_publishPeriod > 0) {
+                double now = Timer.getFPGATimestamp();
+                if(now - m_published[value] < m_publishPeriod) {
+                    m_pending[value] = true;
+                    return;
+                }
+                m_published[value] = now;
+            }
+            m_pending[value] = false;
+            switch(value) {
+                case kReport:
+                    SmartDashboard.putBoolean("PiReport", m_report);
+                    break;
+                case kDistance:
+                    SmartDashboard.putNumber("PiDistance", m_distance);
+                    break;
+                case kOffset:
+                    SmartDashboard.putNumber("PiOffset", m_offset);
+                    break;
+                case kTime:
+                    SmartDashboard.putNumber("PiTime", m_time);
+                    break;
+                case kTargets:
+                    SmartDashboard.putNumber("PiTargets", m_targetCount);
+                    break;
+                case kFiltered:
+                    SmartDashboard.putNumber("PiFilteredDistance", m_filteredDistance);
+                    SmartDashboard.putNumber("PiFilteredOffset", m_filteredOffset);
+                    SmartDashboard.putNumber("PiConfidence", m_confidence);
+                    break;
+            }
         }
         
         public static synchronized boolean getReport() {
@@ -75,76 +306,206 @@ public class RaspberryPi {
         public static synchronized double getTime() {
             return m_time;
         }
+        
+        public static synchronized double getFilteredDistance() {
+            return m_filteredDistance;
+        }
+        public static synchronized double getFilteredOffset() {
+            return m_filteredOffset;
+        }
+        public static synchronized double getConfidence() {
+            return m_confidence;
+        }
+        
+        public static synchronized int getTargetCount() {
+            return m_targetCount;
+        }
+        
+        /**
+         * Gets the offset of a target.
+         * A new frame can arrive between getTargetCount() and this, use getFrame() for every target of one frame.
+         * @param target Target number, 0 is the nearest
+         * @return Offset of the target
+         * @throws IllegalArgumentException If the last frame has no such target
+         */
+        public static synchronized int getTargetOffset(int target) {
+            checkTarget(target);
+            return m_targetOffsets[target];
+        }
+        
+        /**
+         * Gets the distance of a target.
+         * A new frame can arrive between getTargetCount() and this, use getFrame() for every target of one frame.
+         * @param target Target number, 0 is the nearest
+         * @return Distance of the target
+         * @throws IllegalArgumentException If the last frame has no such target
+         */
+        public static synchronized int getTargetDistance(int target) {
+            checkTarget(target);
+            return m_targetDistances[target];
+        }
+        
+        private static void checkTarget(int target) {
+            if(target < 0 || target >= m_targetCount) {
+                throw new IllegalArgumentException("Target " + target + " not in the last frame of " + m_targetCount);
+            }
+        }
     }
     
     /**
      * The thread in which the RaspberryPi Socket Connection data acquisition and parsing is run.
      */
     private class RaspberryPiThread extends Thread {
+        private static final int kMaxFrameTargets = 32; //Most targets read from one frame, the nearest PiMaxTargets of them are kept
         RaspberryPi m_raspberryPi;
         public int distance;
         public int offset;
         public double time;
         private boolean report;
         
+        private final int[] m_values; //Numbers parsed from a frame
+        private final int[] m_offsets; //Every target of a frame, before the nearest are stored in DataKeeper
+        private final int[] m_distances;
+        private int targets;
+        
+        private final VisionFilter m_distanceFilter = new VisionFilter(); //Smoothing between parsing and publishing
+        private final VisionFilter m_offsetFilter = new VisionFilter();
+        private final DeltaFrameDecoder m_decoder = new DeltaFrameDecoder(); //Targets of the last frame in delta mode
+        
         /**
          * Init thread for the pi socket to run in
          * @param raspberryPi Pi to execute in thread
+         * @param maxTargets Most targets kept from a frame
          */
-        public RaspberryPiThread(RaspberryPi raspberryPi) {
+        public RaspberryPiThread(RaspberryPi raspberryPi, int maxTargets) {
             super("RaspberryPiSocket");
             m_raspberryPi = raspberryPi;
+            int frameTargets = Math.max(maxTargets, kMaxFrameTargets);
+            m_values = new int[1 + 2 * frameTargets];
+            m_offsets = new int[frameTargets];
+            m_distances = new int[frameTargets];
         }
         
         public void run() {
             while(m_run) {
-                if(m_raspberryPi.isEnabled()) { //Checks for Thread to run
-                    if(m_raspberryPi.isConnected()) {
-                        report = true;
-                        try {
-                            String[] data = m_raspberryPi.tokenizeData(m_raspberryPi.getRawData()); //Get and examine Data
-                            time = Timer.getFPGATimestamp(); //Timestamp used to check if data was updated from outside thread (through DataKeeper)
-                            if(data.length < 2) { //Error Check
-                                report = false; //If a remote was made
-                            } else {
-                                try {
-                                    distance = Integer.parseInt(data[1]); //Get data and parse it to proper data types
-                                    offset = Integer.parseInt(data[0]);
-                                } catch(NumberFormatException ex) {
-                                    report = false;
+                try {
+                    DataKeeper.setPublishPeriod(m_config.getPublishPeriod());
+                    DataKeeper.publishPending();
+                    m_config.configureFilter(m_distanceFilter);
+                    m_config.configureFilter(m_offsetFilter);
+                    if(m_raspberryPi.isEnabled()) { //Checks for Thread to run
+                        if(m_raspberryPi.isConnected()) {
+                            report = true;
+                            try {
+                                if(m_config.isDeltaFrames()) { //Binary keyframes and deltas, already decoded into targets
+                                    targets = m_raspberryPi.getDeltaFrame(m_decoder, m_offsets, m_distances);
+                                    report = targets >= 0;
+                                    targets = Math.min(targets, m_offsets.length);
+                                } else {
+                                    m_decoder.reset(); //Start over with a keyframe if delta mode is switched on
+                                    report = parseTargets(m_raspberryPi.getRawData()); //Get and examine Data
                                 }
+                                time = Timer.getFPGATimestamp(); //Timestamp used to check if data was updated from outside thread (through DataKeeper)
+                            } catch (IOException ex) {
+                                report = false;
+                                m_raspberryPi.dropConnection(); //Half open or broken, reconnect on the next loop
                             }
-                        } catch (IOException ex) {
-                            report = false;
-                        }
-                        DataKeeper.setReport(report);
+                            boolean found = report && targets > 0; //A frame without targets arrived fine, but has no distance or offset
+                            DataKeeper.setReport(found);
                                 
-                        if(report) { //Store Data in DataKeeper
-                            DataKeeper.setDistance(distance);
-                            DataKeeper.setOffset(offset);
-                            DataKeeper.setTime(time);
-                        }
-                    } else {
-                        try {
-                            m_raspberryPi.connect();
-                        } catch (IOException ex) {
-                            DataKeeper.setReport(false);
+                            if(report) { //Store Data in DataKeeper
+                                DataKeeper.setTargets(m_offsets, m_distances, targets);
+                                if(found) { //The nearest target stands in for the single target
+                                    distance = DataKeeper.getTargetDistance(0);
+                                    offset = DataKeeper.getTargetOffset(0);
+                                    DataKeeper.setDistance(distance);
+                                    DataKeeper.setOffset(offset);
+                                    DataKeeper.setTime(time);
+                                    
+                                    m_distanceFilter.update(distance, time);
+                                    m_offsetFilter.update(offset, time);
+                                    DataKeeper.setFiltered(m_distanceFilter.getFiltered(), m_offsetFilter.getFiltered(),
+                                            Math.min(m_distanceFilter.getConfidence(), m_offsetFilter.getConfidence()));
+                                }
+                            
+                                int sequence = DataKeeper.frameComplete();
+                                VisionListener[] listeners = m_raspberryPi.getListeners();
+                                for(int i = 0; i < listeners.length; i++) {
+                                    try {
+                                        listeners[i].frameReceived(sequence);
+                                    } catch(RuntimeException ex) { //A broken listener must not stop the socket thread
+                                        ex.printStackTrace();
+                                    }
+                                }
+                            }
+                        
+                            TelemetryLogger telemetry = m_raspberryPi.getTelemetry();
+                            if(telemetry != null) {
+                                telemetry.logVision(time, distance, offset, found);
+                            }
+                            m_raspberryPi.checkSilence();
+                        } else {
+                            try {
+                                m_raspberryPi.connect();
+                            } catch (IOException ex) {
+                                DataKeeper.setReport(false);
+                            }
                         }
                     }
+                } catch(Throwable ex) { //Anything unexpected must not stop the socket thread, it carries on with a fresh connection
+                    m_raspberryPi.threadError(ex);
                 }
                 try {
-                    Thread.sleep(375); //Wait half second before getting Data again
+                    Thread.sleep(m_config.getPollPeriod()); //Wait before getting Data again
                 } catch(InterruptedException ex) {}
             }
         }
+        
+        /**
+         * Takes the targets out of a text frame, either "offset,distance" with anything after it ignored as it always was,
+         * or a target list marked by a leading '#', "#count,offset,distance,offset,distance..." where the count may be 0
+         * @param data Text frame
+         * @return if the text made up a frame
+         */
+        private boolean parseTargets(String data) {
+            if(data != null && data.length() > 0 && data.charAt(0) == kTargetList) {
+                int count = m_raspberryPi.parseData(data, 1, m_values);
+                if(count < 1 || m_values[0] < 0 || count != 1 + 2 * m_values[0]) {
+                    return false;
+                }
+                targets = Math.min(m_values[0], m_offsets.length);
+                for(int i = 0; i < targets; i++) {
+                    m_offsets[i] = m_values[1 + 2 * i];
+                    m_distances[i] = m_values[2 + 2 * i];
+                }
+                return true;
+            }
+            if(m_raspberryPi.parseData(data, 0, m_values, 2) < 2) { //Error Check
+                return false;
+            }
+            m_offsets[0] = m_values[0]; //Single target
+            m_distances[0] = m_values[1];
+            targets = 1;
+            return true;
+        }
     }
     
     /**
-     * Constructor
+     * Constructor, uses the default settings
      */
     public RaspberryPi() {
+        this(new RaspberryPiConfig());
+    }
+    
+    /**
+     * Constructor
+     * @param config Settings, such as RaspberryPiConfig.fromPreferences(), which can be reloaded while running
+     */
+    public RaspberryPi(RaspberryPiConfig config) {
+        m_config = config;
         m_enabled = false;
-        m_thread = new RaspberryPiThread(this);
+        DataKeeper.setMaxTargets(config.getMaxTargets());
+        m_thread = new RaspberryPiThread(this, config.getMaxTargets());
         try{
          connect();
         } catch (IOException ex){
@@ -159,42 +520,162 @@ public class RaspberryPi {
      * Attempts to connect to the Socket Server
      * @throws IOException
      */
-    public synchronized void connect() throws IOException {
-        m_socket = (SocketConnection) Connector.open(url);//, Connector.READ_WRITE, true);
-        m_is = m_socket.openInputStream();
-        m_os = m_socket.openOutputStream();
-        m_connected = true;
-        
+    public void connect() throws IOException {
+        synchronized(m_socketLock) {
+            try {
+                m_socket = (SocketConnection) Connector.open(m_config.getUrl());//, Connector.READ_WRITE, true);
+                try {
+                    m_socket.setSocketOption(SocketConnection.DELAY, 0); //Send each request at once instead of holding it for the next
+                } catch(IllegalArgumentException ex) {} //Not supported, requests are only slower
+                m_is = m_socket.openInputStream();
+                m_os = m_socket.openOutputStream();
+            } catch(IOException ex) { //Do not leave half a connection open
+                dropConnection();
+                throw ex;
+            }
+            m_connected = true;
+            m_unanswered = 0;
+        }
     }
     /**
      * Used to safely close out the socket stream object before reconnecting, this will not stop the thread from trying to re-connect.
-     * @throws IOException 
+     * Safe to call when not connected, every part of the connection is closed even if closing one of them fails.
+     * @throws IOException If closing failed, the connection is dropped anyway
      */
-    public synchronized void disconnect() throws IOException {
-        m_socket.close();
-        m_is.close();
-        m_os.close();
-        m_connected = false;
+    public void disconnect() throws IOException {
+        synchronized(m_socketLock) {
+            IOException failure = null;
+            try {
+                if(m_is != null) {
+                    m_is.close();
+                }
+            } catch(IOException ex) {
+                failure = ex;
+            }
+            try {
+                if(m_os != null) {
+                    m_os.close();
+                }
+            } catch(IOException ex) {
+                failure = ex;
+            }
+            try {
+                if(m_socket != null) {
+                    m_socket.close();
+                }
+            } catch(IOException ex) {
+                failure = ex;
+            }
+            m_is = null;
+            m_os = null;
+            m_socket = null;
+            m_connected = false;
+            m_deltaLength = 0; //The rest of a frame from the old connection will never come
+            if(failure != null) {
+                throw failure;
+            }
+        }
+    }
+    
+    /**
+     * Disconnects if a request has gone unanswered for longer than PiSilenceTimeout.
+     * A Pi which lost power or its network looks connected until the socket gives up, which can take minutes.
+     * Only time spent waiting on the Pi counts, so a thread which was stopped for a while does not look like a silent Pi.
+     */
+    void checkSilence() {
+        long timeout = m_config.getSilenceTimeout();
+        synchronized(m_socketLock) {
+            if(m_connected && timeout > 0 && m_unanswered != 0 && System.currentTimeMillis() - m_unanswered > timeout) {
+                System.out.println("PI SILENT");
+                dropConnection();
+            }
+        }
+    }
+    
+    /**
+     * Starts timing silence from a request, unless an older one is still waiting for an answer
+     */
+    private void requestSent() {
+        if(m_unanswered == 0) {
+            m_unanswered = System.currentTimeMillis();
+        }
+    }
+    
+    /**
+     * If the socket thread is still running, it only stops if something it cannot recover from happens
+     * @return if the socket thread is alive
+     */
+    public boolean isThreadAlive() {
+        return m_thread.isAlive();
+    }
+    
+    /**
+     * Disconnects after an error, so the thread reconnects
+     */
+    void dropConnection() {
+        synchronized(m_socketLock) {
+            if(m_connected) {
+                synchronized(this) {
+                    m_reconnects++;
+                }
+            }
+            try {
+                disconnect();
+            } catch(IOException ex) {} //Already broken
+        }
+    }
+    
+    /**
+     * Counts and prints an exception the socket thread caught, and starts the connection over in case it was left half used
+     */
+    void threadError(Throwable ex) {
+        synchronized(this) {
+            m_threadErrors++;
+        }
+        ex.printStackTrace();
+        dropConnection();
+    }
+    
+    /**
+     * Number of times the connection was dropped because of an error and had to be reopened
+     * @return Reconnects
+     */
+    public synchronized int getReconnects() {
+        return m_reconnects;
+    }
+    
+    /**
+     * Number of unexpected exceptions the socket thread caught and carried on from
+     * @return Thread Errors
+     */
+    public synchronized int getThreadErrors() {
+        return m_threadErrors;
     }
     
     /**
      * Checks if the Socket Connection is Open
      * @return if the connection is available
      */
-    public synchronized boolean isConnected() {
+    public boolean isConnected() {
         //need to actually test the connection 
         //to figure out if we're connected or not
-        try{
-            m_os.write('\n'); //request Data
-            m_connected = true;
-        } catch(IOException ex){
-            m_connected = false;
-        } catch(Exception ex) {
-            m_connected = false;
+        synchronized(m_socketLock) {
+            if(m_os == null) { //Never connected, or disconnected
+                m_connected = false;
+                return false;
+            }
+            try{
+                m_os.write('\n'); //request Data
+                m_connected = true;
+            } catch(IOException ex){
+                dropConnection();
+            } catch(Exception ex) {
+                dropConnection();
+                
+            }
             
+            return m_connected;
         }
-        
-        return m_connected;
     }
     
     /**
@@ -221,6 +702,109 @@ public class RaspberryPi {
         return DataKeeper.getReport();
     }
     
+    public double getFilteredDistance() {
+        return DataKeeper.getFilteredDistance();
+    }
+    
+    public double getFilteredOffset() {
+        return DataKeeper.getFilteredOffset();
+    }
+    
+    public double getConfidence() {
+        return DataKeeper.getConfidence();
+    }
+    
+    public int getTargetCount() {
+        return DataKeeper.getTargetCount();
+    }
+    
+    /**
+     * Gets the offset of a target from the last frame
+     * @param target Target number, 0 is the nearest
+     * @return Offset of the target
+     */
+    public int getTargetOffset(int target) {
+        return DataKeeper.getTargetOffset(target);
+    }
+    
+    /**
+     * Gets the distance of a target from the last frame
+     * @param target Target number, 0 is the nearest
+     * @return Distance of the target
+     */
+    public int getTargetDistance(int target) {
+        return DataKeeper.getTargetDistance(target);
+    }
+    
+    /**
+     * Gets the settings, reload them to change the connection while running
+     * @return Settings
+     */
+    public RaspberryPiConfig getConfig() {
+        return m_config;
+    }
+    
+    /**
+     * Adds a listener called on the socket thread after every new frame
+     * @param listener Listener to add
+     */
+    public synchronized void addListener(VisionListener listener) {
+        VisionListener[] listeners = new VisionListener[m_listeners.length + 1];
+        System.arraycopy(m_listeners, 0, listeners, 0, m_listeners.length);
+        listeners[m_listeners.length] = listener;
+        m_listeners = listeners;
+    }
+    
+    /**
+     * Removes a listener
+     * @param listener Listener to remove
+     */
+    public synchronized void removeListener(VisionListener listener) {
+        for(int i = 0; i < m_listeners.length; i++) {
+            if(m_listeners[i] == listener) {
+                VisionListener[] listeners = new VisionListener[m_listeners.length - 1];
+                System.arraycopy(m_listeners, 0, listeners, 0, i);
+                System.arraycopy(m_listeners, i + 1, listeners, i, listeners.length - i);
+                m_listeners = listeners;
+                return;
+            }
+        }
+    }
+    
+    synchronized VisionListener[] getListeners() {
+        return m_listeners;
+    }
+    
+    /**
+     * Waits for the next frame, see DataKeeper.waitForFrame()
+     * @param frame Last frame seen, overwritten with the new frame
+     * @param timeout Longest time to wait in milliseconds
+     * @return if a new frame arrived
+     */
+    public boolean waitForFrame(VisionFrame frame, long timeout) {
+        return DataKeeper.waitForFrame(frame, timeout);
+    }
+    
+    public int getSequence() {
+        return DataKeeper.getSequence();
+    }
+    
+    /**
+     * Logs every sample taken from now on
+     * @param telemetry Log to write samples to, null to stop logging
+     */
+    public synchronized void setTelemetry(TelemetryLogger telemetry) {
+        m_telemetry = telemetry;
+    }
+    
+    /**
+     * Gets the log samples are written to
+     * @return Telemetry Log, null if not logging
+     */
+    public synchronized TelemetryLogger getTelemetry() {
+        return m_telemetry;
+    }
+    
     /**
      * Enables the Thread Execution
      */
@@ -240,46 +824,226 @@ public class RaspberryPi {
      * @return String returned from RaspberryPi
      * @throws IOException 
      */
-    public synchronized String getRawData() throws IOException {
-        byte[] input; //temporary holder
-        
-        if (m_connected) {
-            m_os.write('G'); //request Data
-            System.out.println("Requested Data");
-            
-            if(m_is.available() <= bufferSize) {
-                input = new byte[m_is.available()]; //storage space sized to fit!
-                m_receivedData = new byte[m_is.available()]; //using stream to simply null detection
-                m_is.read(input); //Read in data from Pi
-                for(int i = 0; (input != null) && (i < input.length); i++) {
-                    m_receivedData[i] = input[i]; //transfer input to full size storage
+    public String getRawData() throws IOException {
+        synchronized(m_socketLock) {
+            if (m_connected) {
+                m_os.write('G'); //request Data
+                requestSent();
+                
+                int length = readResponse();
+                if(length < 0) {
+                    return null;
+                }
+                
+                if(m_frameChars.length < length) {
+                    m_frameChars = new char[m_frameData.length];
                 }
+                for (int i = 0; i < length; i++) {
+                    m_frameChars[i] = (char) (m_frameData[i] & 0xFF); //Cast bytes to chars, one String is made from them instead of one per byte
+                }
+                m_rawData = new String(m_frameChars, 0, length);
+                return m_rawData;
             } else {
-                System.out.println("PI OVERFLOW");
-                m_is.skip(m_is.available()); //reset if more is stored than buffer
+                connect();
                 return null;
             }
+        }
+    }
+    
+    /**
+     * Requests a binary frame from the RaspberryPi in delta mode, or a keyframe if the decoder is out of sync, and decodes it.
+     * Frames are cut out of the stream by their length, every whole frame which has arrived is decoded in order,
+     * and the start of a frame which has not fully arrived is kept for the next call.
+     * @param decoder Decoder holding the targets of the previous frames
+     * @param offsets Where to copy the offset of each target
+     * @param distances Where to copy the distance of each target
+     * @return Number of targets in the last frame, -1 if no frame arrived or it could not be decoded
+     * @throws IOException 
+     */
+    public int getDeltaFrame(DeltaFrameDecoder decoder, int[] offsets, int[] distances) throws IOException {
+        synchronized(m_socketLock) {
+            if(!m_connected) {
+                connect();
+                return -1;
+            }
+            m_os.write(decoder.needsKeyframe() ? DeltaFrameDecoder.kKeyframe : DeltaFrameDecoder.kDelta);
+            requestSent();
             
-            m_rawData = ""; //String to transfer received data to
-            System.out.println("Raw Data: "+m_receivedData.length);
-            for (int i = 0; i < m_receivedData.length; i++) {
-                m_rawData += (char) m_receivedData[i]; //Cast bytes to chars and concatinate them to the String
+            int frames = 0;
+            boolean decoded = false;
+            long deadline = System.currentTimeMillis() + m_config.getResponseTimeout();
+            while(true) {
+                int size = DeltaFrameDecoder.frameSize(m_deltaData, 0, m_deltaLength);
+                if(size < 0) { //Not a frame, nothing after it can be trusted until a keyframe
+                    System.out.println("PI BAD FRAME");
+                    m_deltaLength = 0;
+                    m_is.skip(m_is.available());
+                    decoder.reset();
+                    return -1;
+                }
+                if(size > 0 && size <= m_deltaLength) {
+                    decoded = decoder.decode(m_deltaData, 0, size);
+                    frames++;
+                    countFrame(size);
+                    m_deltaLength -= size;
+                    System.arraycopy(m_deltaData, size, m_deltaData, 0, m_deltaLength);
+                    continue;
+                }
+                
+                int available = m_is.available();
+                if(available > 0) { //A frame is never longer than the buffer, so there is always room for more of it
+                    int read = m_is.read(m_deltaData, m_deltaLength, Math.min(available, m_deltaData.length - m_deltaLength));
+                    if(read < 0) {
+                        throw new IOException("Pi closed the connection");
+                    }
+                    m_deltaLength += read;
+                    m_unanswered = 0;
+                } else if(frames > 0 || System.currentTimeMillis() >= deadline) {
+                    break;
+                } else {
+                    try {
+                        Thread.sleep(1); //Give the Pi time to answer
+                    } catch(InterruptedException ex) {}
+                }
             }
-            System.out.println(m_rawData);
-            return m_rawData;
-        } else {
-            connect();
-            return null;
+            return decoded ? decoder.getTargets(offsets, distances) : -1;
         }
     }
     
     /**
-     * Separates input String into many Strings based on the delimiter given above
+     * Average size of the frames read, to compare the text and delta frame modes
+     * @return Bytes per frame
+     */
+    public synchronized double getBytesPerFrame() {
+        return m_framesReceived == 0 ? 0 : (double) m_bytesReceived / m_framesReceived;
+    }
+    
+    public synchronized int getFramesReceived() {
+        return m_framesReceived;
+    }
+    
+    private synchronized void countFrame(int length) {
+        m_framesReceived++;
+        m_bytesReceived += length;
+    }
+    
+    /**
+     * Gives the Pi up to the response timeout to start answering a request, then reads whatever it has sent into m_frameData.
+     * Called holding only the socket lock, so the robot's calls to start(), stop() and the rest carry on meanwhile.
+     * @return Number of bytes read, -1 if more arrived than the buffer size and it was thrown away
+     */
+    private int readResponse() throws IOException {
+        long deadline = System.currentTimeMillis() + m_config.getResponseTimeout();
+        while(m_is.available() == 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(1);
+            } catch(InterruptedException ex) {}
+        }
+        
+        int available = m_is.available();
+        if(available > m_config.getBufferSize()) {
+            System.out.println("PI OVERFLOW");
+            m_is.skip(available); //reset if more is stored than buffer
+            return -1;
+        }
+        if(m_frameData.length < available) { //Only grows when the buffer size setting does
+            m_frameData = new byte[m_config.getBufferSize()];
+        }
+        int length = 0;
+        while(length < available) {
+            int read = m_is.read(m_frameData, length, available - length);
+            if(read < 0) {
+                throw new IOException("Pi closed the connection");
+            }
+            length += read;
+        }
+        if(length > 0) { //Nothing arrived in time is not a frame
+            countFrame(length);
+            m_unanswered = 0;
+        }
+        return length;
+    }
+    
+    /**
+     * Reads the whole numbers separated by the configured delimiter out of a String, without creating any objects
+     * @param input String to be parsed
+     * @param output Where the numbers are stored, numbers past its end are counted but not stored
+     * @return Count of numbers in the String, -1 if it is null or holds anything but numbers which fit in an int
+     */
+    public int parseData(String input, int[] output) {
+        return parseData(input, 0, output);
+    }
+    
+    /**
+     * Reads the whole numbers separated by the configured delimiter out of a String, from a given character on
+     * @param input String to be parsed
+     * @param start Index of the first character to parse, such as 1 to skip a target list's '#'
+     * @param output Where the numbers are stored, numbers past its end are counted but not stored
+     * @return Count of numbers in the String, -1 if it is null or holds anything but numbers which fit in an int
+     */
+    public int parseData(String input, int start, int[] output) {
+        return parseData(input, start, output, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Reads whole numbers until a limit, ignoring anything after
+     * @return Count of numbers read, -1 if it is null or holds anything but numbers before the limit
+     */
+    int parseData(String input, int start, int[] output, int limit) {
+        if(input == null) {
+            return -1;
+        }
+        char delimiter = m_config.getDelimiter();
+        int count = 0;
+        long value = 0; //Long so a number too big for an int can be caught, as Integer.parseInt() would
+        boolean negative = false;
+        boolean digits = false;
+        boolean ended = false; //Whitespace after a number, only a delimiter may follow
+        for(int i = start; i <= input.length(); i++) {
+            char c = i < input.length() ? input.charAt(i) : delimiter;
+            if(c == delimiter) {
+                if(digits) {
+                    if(count < output.length) {
+                        output[count] = (int) (negative ? -value : value);
+                    }
+                    count++;
+                    if(count == limit) {
+                        return count;
+                    }
+                } else if(negative) {
+                    return -1;
+                }
+                value = 0;
+                negative = false;
+                digits = false;
+                ended = false;
+            } else if(c >= '0' && c <= '9' && !ended) {
+                value = value * 10 + (c - '0');
+                if(value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) { //Garbled digits, not a number from the Pi
+                    return -1;
+                }
+                digits = true;
+            } else if(c == '-' && !digits && !negative && !ended) {
+                negative = true;
+            } else if(c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                ended = digits || negative;
+            } else {
+                return -1;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Separates input String into many Strings based on the configured delimiter
      * @param input String to be tokenized
      * @return String Array of Tokenized Input String
      */
     public synchronized String[] tokenizeData(String input) {
-        StringTokenizer tokenizer = new StringTokenizer(input, String.valueOf(delimiter));
+        if(input == null) { //No data, such as after an overflow
+            return new String[0];
+        }
+        StringTokenizer tokenizer = new StringTokenizer(input, String.valueOf(m_config.getDelimiter()));
         String output[] = new String[tokenizer.countTokens()];
         
         for(int i = 0; i < output.length; i++) {
@@ -0,0 +1,306 @@
+package org.usfirst.frc3946.Utilities;
+
+import edu.wpi.first.wpilibj.Preferences;
+import java.io.IOException;
+import java.io.InputStream;
+import javax.microedition.io.Connector;
+
+/**
+ * Settings for the RaspberryPi connection, loaded from the robot Preferences or a properties file instead of being compiled in.
+ * The socket thread reads them on every loop, so calling reload() between matches changes the rates, buffer and timeouts without restarting it.
+ * The url is only read when connecting, so a new url takes effect on the next reconnect, and the most targets is only read when the RaspberryPi is constructed.
+ *
+ * Properties files hold one "key=value" per line, lines starting with # are ignored. The keys, which are also the Preferences keys, are:
+ * PiUrl, PiBufferSize, PiDelimiter, PiPollPeriod (ms), PiResponseTimeout (ms), PiPublishPeriod (seconds), PiMaxTargets,
+ * PiFilter (none, median, ema or kalman), PiFilterWindow, PiFilterAlpha, PiFilterProcessNoise, PiFilterMeasurementNoise,
+ * PiFrameMode (ascii for delimited text, or delta for the binary frames read by DeltaFrameDecoder), PiSilenceTimeout (ms)
+ */
+public class RaspberryPiConfig {
+    
+    public static final String kUrl = "PiUrl";
+    public static final String kBufferSize = "PiBufferSize";
+    public static final String kDelimiter = "PiDelimiter";
+    public static final String kPollPeriod = "PiPollPeriod";
+    public static final String kResponseTimeout = "PiResponseTimeout";
+    public static final String kPublishPeriod = "PiPublishPeriod";
+    public static final String kMaxTargets = "PiMaxTargets";
+    public static final String kFilter = "PiFilter";
+    public static final String kFilterWindow = "PiFilterWindow";
+    public static final String kFilterAlpha = "PiFilterAlpha";
+    public static final String kFilterProcessNoise = "PiFilterProcessNoise";
+    public static final String kFilterMeasurementNoise = "PiFilterMeasurementNoise";
+    public static final String kFrameMode = "PiFrameMode";
+    public static final String kSilenceTimeout = "PiSilenceTimeout";
+    
+    public static final String kAsciiFrames = "ascii"; //Values of PiFrameMode
+    public static final String kDeltaFrames = "delta";
+    
+    private String m_url = "socket://10.39.46.12:10000"; //change to use team's selected IP and Port
+    private int m_bufferSize = 64; //If you need more bytes than this, go for it, but wow, lots of data.
+    private char m_delimiter = ','; //The character used to separate data in the socket stream.
+    private long m_pollPeriod = 375; //Time between requests for data
+    private long m_responseTimeout = 0; //How long to wait for the Pi to answer a request, 0 reads whatever has arrived
+    private double m_publishPeriod = 0; //Least time between SmartDashboard updates, 0 publishes every sample
+    private int m_maxTargets = 4; //Most targets kept from a frame
+    private VisionFilter.FilterType m_filter = VisionFilter.FilterType.kNone; //How the distance and offset are smoothed
+    private int m_filterWindow = 5;
+    private double m_filterAlpha = .5;
+    private double m_filterProcessNoise = 10;
+    private double m_filterMeasurementNoise = 4;
+    private boolean m_deltaFrames = false; //if the Pi sends binary keyframes and deltas instead of text
+    private long m_silenceTimeout = 2000; //How long the Pi may send nothing before reconnecting, 0 never reconnects
+    
+    private String m_file = null; //Where the settings were loaded from, for reload()
+    private boolean m_preferences = false;
+    
+    /**
+     * Constructor, uses the default settings
+     */
+    public RaspberryPiConfig() {
+    }
+    
+    /**
+     * Loads the settings from the robot Preferences, settings missing from the Preferences keep their defaults
+     * @return Settings
+     */
+    public static RaspberryPiConfig fromPreferences() {
+        RaspberryPiConfig config = new RaspberryPiConfig();
+        config.loadPreferences();
+        return config;
+    }
+    
+    /**
+     * Loads the settings from a properties file, settings missing from the file keep their defaults
+     * @param url Location of the file, such as "file:///pi.properties"
+     * @return Settings
+     * @throws IOException If the file could not be read
+     */
+    public static RaspberryPiConfig fromFile(String url) throws IOException {
+        RaspberryPiConfig config = new RaspberryPiConfig();
+        config.loadFile(url);
+        return config;
+    }
+    
+    /**
+     * Reads the settings again from wherever they were loaded from
+     * @throws IOException If the file could not be read, the settings are left as they were
+     */
+    public void reload() throws IOException {
+        String file;
+        boolean preferences;
+        synchronized(this) {
+            file = m_file;
+            preferences = m_preferences;
+        }
+        if(file != null) {
+            loadFile(file);
+        } else if(preferences) {
+            loadPreferences();
+        }
+    }
+    
+    /**
+     * Reads the settings from the robot Preferences
+     */
+    public synchronized void loadPreferences() {
+        Preferences prefs = Preferences.getInstance();
+        m_url = prefs.getString(kUrl, m_url);
+        setBufferSize(prefs.getInt(kBufferSize, m_bufferSize));
+        String delimiter = prefs.getString(kDelimiter, String.valueOf(m_delimiter));
+        if(delimiter.length() > 0) {
+            m_delimiter = delimiter.charAt(0);
+        }
+        setPollPeriod(prefs.getInt(kPollPeriod, (int) m_pollPeriod));
+        setResponseTimeout(prefs.getInt(kResponseTimeout, (int) m_responseTimeout));
+        setPublishPeriod(prefs.getDouble(kPublishPeriod, m_publishPeriod));
+        setMaxTargets(prefs.getInt(kMaxTargets, m_maxTargets));
+        m_filter = VisionFilter.FilterType.fromName(prefs.getString(kFilter, m_filter.name));
+        m_filterWindow = prefs.getInt(kFilterWindow, m_filterWindow);
+        m_filterAlpha = prefs.getDouble(kFilterAlpha, m_filterAlpha);
+        m_filterProcessNoise = prefs.getDouble(kFilterProcessNoise, m_filterProcessNoise);
+        m_filterMeasurementNoise = prefs.getDouble(kFilterMeasurementNoise, m_filterMeasurementNoise);
+        m_deltaFrames = kDeltaFrames.equals(prefs.getString(kFrameMode, m_deltaFrames ? kDeltaFrames : kAsciiFrames));
+        setSilenceTimeout(prefs.getInt(kSilenceTimeout, (int) m_silenceTimeout));
+        m_preferences = true;
+    }
+    
+    /**
+     * Reads the settings from a properties file
+     * @param url Location of the file, such as "file:///pi.properties"
+     * @throws IOException If the file could not be read
+     */
+    public void loadFile(String url) throws IOException {
+        InputStream is = Connector.openInputStream(url);
+        try {
+            load(is);
+        } finally {
+            is.close();
+        }
+        synchronized(this) {
+            m_file = url;
+        }
+    }
+    
+    /**
+     * Reads the settings from a properties stream, values which do not parse are skipped
+     * @param is Stream of "key=value" lines
+     * @throws IOException If the stream could not be read
+     */
+    public void load(InputStream is) throws IOException {
+        StringBuffer text = new StringBuffer();
+        byte[] buffer = new byte[256];
+        for(int read = is.read(buffer); read > 0; read = is.read(buffer)) {
+            for(int i = 0; i < read; i++) {
+                text.append((char) buffer[i]);
+            }
+        }
+        
+        String lines = text.toString();
+        synchronized(this) {
+            int start = 0;
+            while(start < lines.length()) {
+                int end = lines.indexOf('\n', start);
+                if(end < 0) {
+                    end = lines.length();
+                }
+                parseLine(lines.substring(start, end).trim());
+                start = end + 1;
+            }
+        }
+    }
+    
+    private void parseLine(String line) {
+        int equals = line.indexOf('=');
+        if(line.length() == 0 || line.charAt(0) == '#' || equals < 0) {
+            return;
+        }
+        String key = line.substring(0, equals).trim();
+        String value = line.substring(equals + 1).trim();
+        try {
+            if(key.equals(kUrl)) {
+                m_url = value;
+            } else if(key.equals(kBufferSize)) {
+                setBufferSize(Integer.parseInt(value));
+            } else if(key.equals(kDelimiter)) {
+                if(value.length() > 0) {
+                    m_delimiter = value.charAt(0);
+                }
+            } else if(key.equals(kPollPeriod)) {
+                setPollPeriod(Long.parseLong(value));
+            } else if(key.equals(kResponseTimeout)) {
+                setResponseTimeout(Long.parseLong(value));
+            } else if(key.equals(kPublishPeriod)) {
+                setPublishPeriod(Double.parseDouble(value));
+            } else if(key.equals(kMaxTargets)) {
+                setMaxTargets(Integer.parseInt(value));
+            } else if(key.equals(kFilter)) {
+                m_filter = VisionFilter.FilterType.fromName(value);
+            } else if(key.equals(kFilterWindow)) {
+                m_filterWindow = Integer.parseInt(value);
+            } else if(key.equals(kFilterAlpha)) {
+                m_filterAlpha = Double.parseDouble(value);
+            } else if(key.equals(kFilterProcessNoise)) {
+                m_filterProcessNoise = Double.parseDouble(value);
+            } else if(key.equals(kFilterMeasurementNoise)) {
+                m_filterMeasurementNoise = Double.parseDouble(value);
+            } else if(key.equals(kFrameMode)) {
+                m_deltaFrames = kDeltaFrames.equals(value);
+            } else if(key.equals(kSilenceTimeout)) {
+                setSilenceTimeout(Long.parseLong(value));
+            }
+        } catch(NumberFormatException ex) {
+            System.out.println("Bad Pi setting: " + line);
+        }
+    }
+    
+    public synchronized String getUrl() {
+        return m_url;
+    }
+    
+    public synchronized int getBufferSize() {
+        return m_bufferSize;
+    }
+    
+    public synchronized char getDelimiter() {
+        return m_delimiter;
+    }
+    
+    public synchronized long getPollPeriod() {
+        return m_pollPeriod;
+    }
+    
+    public synchronized long getResponseTimeout() {
+        return m_responseTimeout;
+    }
+    
+    public synchronized long getSilenceTimeout() {
+        return m_silenceTimeout;
+    }
+    
+    public synchronized double getPublishPeriod() {
+        return m_publishPeriod;
+    }
+    
+    public synchronized int getMaxTargets() {
+        return m_maxTargets;
+    }
+    
+    /**
+     * If the Pi sends binary frames for DeltaFrameDecoder instead of delimited text
+     * @return if delta frames are used
+     */
+    public synchronized boolean isDeltaFrames() {
+        return m_deltaFrames;
+    }
+    
+    /**
+     * Applies the filter settings to a filter
+     * @param filter Filter to set up
+     */
+    public synchronized void configureFilter(VisionFilter filter) {
+        filter.setType(m_filter);
+        filter.setWindowSize(m_filterWindow);
+        filter.setAlpha(m_filterAlpha);
+        filter.setNoise(m_filterProcessNoise, m_filterMeasurementNoise);
+    }
+    
+    public synchronized void setFilter(VisionFilter.FilterType filter) {
+        m_filter = filter;
+    }
+    
+    public synchronized void setUrl(String url) {
+        m_url = url;
+    }
+    
+    public synchronized void setBufferSize(int bufferSize) {
+        m_bufferSize = Math.max(1, bufferSize);
+    }
+    
+    public synchronized void setDelimiter(char delimiter) {
+        m_delimiter = delimiter;
+    }
+    
+    public synchronized void setPollPeriod(long pollPeriod) {
+        m_pollPeriod = Math.max(1, pollPeriod); //0 would spin the socket thread while it reconnects
+    }
+    
+    public synchronized void setResponseTimeout(long responseTimeout) {
+        m_responseTimeout = Math.max(0, responseTimeout);
+    }
+    
+    public synchronized void setPublishPeriod(double publishPeriod) {
+        m_publishPeriod = Math.max(0, publishPeriod);
+    }
+    
+    public synchronized void setMaxTargets(int maxTargets) {
+        m_maxTargets = Math.max(1, maxTargets);
+    }
+    
+    public synchronized void setSilenceTimeout(long silenceTimeout) {
+        m_silenceTimeout = Math.max(0, silenceTimeout);
+    }
+    
+    public synchronized void setDeltaFrames(boolean deltaFrames) {
+        m_deltaFrames = deltaFrames;
+    }
+}
@@ -0,0 +1,60 @@
+package org.usfirst.frc3946.Utilities;
+
+import java.io.IOException;
+import javax.microedition.io.Connector;
+
+/**
+ * Plays back InputRecorder recordings as joystick input, one recording per port.
+ * Call step() once every cycle to advance every recording together.
+ */
+public class ReplayInput implements InputSource {
+    
+    private final InputReplay[] m_replays = new InputReplay[kPorts];
+    
+    /**
+     * Plays a recording on a port
+     * @param port USB Port (1 to 4)
+     * @param replay Recording to play, null to leave the port idle
+     */
+    public synchronized void setReplay(int port, InputReplay replay) {
+        m_replays[port - 1] = replay;
+    }
+    
+    /**
+     * Plays a recording file on a port
+     * @param port USB Port (1 to 4)
+     * @param url Location of the recording, such as "file:///driver.rec"
+     * @throws IOException If the file could not be opened or is not a recording
+     */
+    public void open(int port, String url) throws IOException {
+        setReplay(port, new InputReplay(Connector.openInputStream(url)));
+    }
+    
+    /**
+     * Advances every recording to its next cycle
+     * @return false once every recording is finished
+     */
+    public synchronized boolean step() {
+        boolean playing = false;
+        for(int i = 0; i < m_replays.length; i++) {
+            if(m_replays[i] != null && m_replays[i].step()) {
+                playing = true;
+            }
+        }
+        return playing;
+    }
+    
+    public synchronized double getStickAxis(int port, int axis) {
+        if(port < 1 || port > m_replays.length || m_replays[port - 1] == null) {
+            return 0;
+        }
+        return m_replays[port - 1].getAxis(axis);
+    }
+    
+    public synchronized int getStickButtons(int port) {
+        if(port < 1 || port > m_replays.length || m_replays[port - 1] == null) {
+            return 0;
+        }
+        return m_replays[port - 1].getButtons();
+    }
+}
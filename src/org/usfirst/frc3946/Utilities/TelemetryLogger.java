@@ -0,0 +1,254 @@
+package org.usfirst.frc3946.Utilities;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Logs vision samples and controller snapshots as fixed size binary records, for looking over after a match with tools/TelemetryDecoder.
+ * Records are copied into one of two buffers allocated up front. When it fills, the buffers swap and a low priority thread
+ * writes the full one to the stream in a single write, so logging never waits on the stream and never creates garbage.
+ * If the writer falls behind so both buffers are full, records are dropped and counted instead of blocking the caller.
+ *
+ * Every record is 18 bytes, big endian, starting with its type:
+ * Vision: type 1, time (double), distance (int), offset (int), report (byte)
+ * Controller: type 2, time (double), port (byte), 6 axes (signed byte each, as sent by the Driver Station), buttons (short)
+ */
+public class TelemetryLogger {
+    
+    /**
+     * Size of every record in bytes
+     */
+    public static final int kRecordSize = 18;
+    
+    static final byte kMagic0 = 'T'; //Start of every log
+    static final byte kMagic1 = 'L';
+    static final byte kVersion = 1;
+    static final byte kVision = 1;
+    static final byte kController = 2;
+    
+    private final OutputStream m_os;
+    private final byte[][] m_buffers = new byte[2][];
+    private int m_active = 0; //Buffer being filled
+    private int m_length = 0;
+    private int m_fullLength = -1; //Length of the other buffer while it waits to be written, -1 when free
+    private boolean m_running = true;
+    
+    private int m_records = 0;
+    private int m_dropped = 0;
+    private boolean m_failed = false;
+    
+    /**
+     * Thread in which full buffers are written to the stream.
+     */
+    private class TelemetryWriter extends Thread {
+        
+        public TelemetryWriter() {
+            super("TelemetryWriter");
+        }
+        
+        public void run() {
+            writeBuffers();
+        }
+    }
+    
+    /**
+     * Constructor, starts the writer thread
+     * @param os Stream the log is written to, such as a file opened through Connector
+     * @param bufferSize Size of each of the two buffers in bytes, larger means fewer and larger writes
+     */
+    public TelemetryLogger(OutputStream os, int bufferSize) {
+        if(bufferSize < 3 + kRecordSize) {
+            throw new IllegalArgumentException("Buffer too small for a record");
+        }
+        m_os = os;
+        m_buffers[0] = new byte[bufferSize];
+        m_buffers[1] = new byte[bufferSize];
+        
+        m_buffers[0][m_length++] = kMagic0;
+        m_buffers[0][m_length++] = kMagic1;
+        m_buffers[0][m_length++] = kVersion;
+        
+        Thread writer = new TelemetryWriter();
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+    
+    /**
+     * Logs a sample from the RaspberryPi
+     * @param time When the sample was taken in seconds
+     * @param distance Distance reported
+     * @param offset Offset reported
+     * @param report If the sample was good
+     */
+    public synchronized void logVision(double time, int distance, int offset, boolean report) {
+        if(!reserve()) {
+            return;
+        }
+        byte[] buffer = m_buffers[m_active];
+        int i = m_length;
+        buffer[i++] = kVision;
+        i = putLong(buffer, i, Double.doubleToLongBits(time));
+        i = putInt(buffer, i, distance);
+        i = putInt(buffer, i, offset);
+        buffer[i++] = (byte) (report ? 1 : 0);
+        m_length = i;
+        m_records++;
+    }
+    
+    /**
+     * Logs the axes and buttons of a controller
+     * @param time When the snapshot was taken in seconds
+     * @param source Where to read the controller from, such as an InputAggregator after its update
+     * @param port USB Port on DriverStation
+     */
+    public synchronized void logController(double time, InputSource source, int port) {
+        if(!reserve()) {
+            return;
+        }
+        byte[] buffer = m_buffers[m_active];
+        int i = m_length;
+        buffer[i++] = kController;
+        i = putLong(buffer, i, Double.doubleToLongBits(time));
+        buffer[i++] = (byte) port;
+        for(int axis = 1; axis <= InputRecorder.kAxisCount; axis++) {
+            buffer[i++] = (byte) InputRecorder.encodeAxis(source.getStickAxis(port, axis));
+        }
+        int buttons = source.getStickButtons(port);
+        buffer[i++] = (byte) (buttons >> 8);
+        buffer[i++] = (byte) buttons;
+        m_length = i;
+        m_records++;
+    }
+    
+    /**
+     * Hands the records logged so far to the writer thread, waiting for it if it is still busy
+     */
+    public synchronized void flush() {
+        waitForWriter();
+        if(m_length > 0) {
+            swap();
+        }
+    }
+    
+    /**
+     * Writes out the remaining records and closes the stream once the writer thread is done
+     */
+    public synchronized void close() {
+        if(!m_running) {
+            return;
+        }
+        flush();
+        m_running = false;
+        notifyAll();
+    }
+    
+    /**
+     * Number of records logged
+     * @return Records logged
+     */
+    public synchronized int getRecords() {
+        return m_records;
+    }
+    
+    /**
+     * Number of records dropped because the writer thread fell behind or the log was closed
+     * @return Records dropped
+     */
+    public synchronized int getDropped() {
+        return m_dropped;
+    }
+    
+    /**
+     * If a write to the stream failed, the records in that buffer are lost
+     * @return if writing failed
+     */
+    public synchronized boolean hasFailed() {
+        return m_failed;
+    }
+    
+    /**
+     * Makes sure there is room for a record in the active buffer
+     * @return false if the record has to be dropped
+     */
+    private boolean reserve() {
+        if(!m_running) {
+            m_dropped++;
+            return false;
+        }
+        if(m_length + kRecordSize <= m_buffers[m_active].length) {
+            return true;
+        }
+        if(m_fullLength >= 0) { //Both buffers are full
+            m_dropped++;
+            return false;
+        }
+        swap();
+        return true;
+    }
+    
+    private void swap() {
+        m_fullLength = m_length;
+        m_active ^= 1;
+        m_length = 0;
+        notifyAll();
+    }
+    
+    private void waitForWriter() {
+        while(m_fullLength >= 0) {
+            try {
+                wait();
+            } catch(InterruptedException ex) {}
+        }
+    }
+    
+    private void writeBuffers() {
+        while(true) {
+            byte[] buffer;
+            int length;
+            synchronized(this) {
+                while(m_fullLength < 0 && m_running) {
+                    try {
+                        wait();
+                    } catch(InterruptedException ex) {}
+                }
+                if(m_fullLength < 0) { //Closed with nothing left to write
+                    break;
+                }
+                buffer = m_buffers[m_active ^ 1];
+                length = m_fullLength;
+            }
+            boolean failed = false;
+            try { //Written outside the lock so logging carries on meanwhile
+                m_os.write(buffer, 0, length);
+                m_os.flush();
+            } catch(IOException ex) {
+                failed = true;
+            }
+            synchronized(this) {
+                m_failed |= failed;
+                m_fullLength = -1;
+                notifyAll();
+            }
+        }
+        try {
+            m_os.close();
+        } catch(IOException ex) {
+            synchronized(this) {
+                m_failed = true;
+            }
+        }
+    }
+    
+    private static int putInt(byte[] buffer, int i, int value) {
+        buffer[i++] = (byte) (value >> 24);
+        buffer[i++] = (byte) (value >> 16);
+        buffer[i++] = (byte) (value >> 8);
+        buffer[i++] = (byte) value;
+        return i;
+    }
+    
+    private static int putLong(byte[] buffer, int i, long value) {
+        i = putInt(buffer, i, (int) (value >> 32));
+        return putInt(buffer, i, (int) value);
+    }
+}
@@ -0,0 +1,290 @@
+package org.usfirst.frc3946.Utilities;
+
+/**
+ * Smooths one value coming from the RaspberryPi, such as the distance or the offset, so single frame outliers do not make the aim jump.
+ * It can take the median of the last few samples, an exponential moving average, or run a constant velocity Kalman filter on the sample times.
+ * All of its state is kept in fixed size arrays and fields, so updating it creates no garbage.
+ *
+ * Alongside the filtered value it keeps a confidence from 0 to 1, which is 1 while the samples agree with the estimate
+ * and falls towards 0 as they scatter by more than the measurement noise.
+ */
+public class VisionFilter {
+    
+    /**
+     * Most samples the median filter can look at
+     */
+    public static final int kMaxWindow = 15;
+    
+    /**
+     * Represents a way of filtering.
+     */
+    public static class FilterType {
+        
+        /**
+         * The integer value representing this enumeration
+         */
+        public final int value;
+        
+        /**
+         * Name of the filter in the settings
+         */
+        public final String name;
+        
+        private static final int kNone_val = 0;
+        private static final int kMedian_val = 1;
+        private static final int kExponential_val = 2;
+        private static final int kKalman_val = 3;
+        
+        private FilterType(int value, String name) {
+            this.value = value;
+            this.name = name;
+        }
+        
+        /**
+         * Filter: Raw samples are passed through
+         */
+        public static final FilterType kNone = new FilterType(kNone_val, "none");
+        
+        /**
+         * Filter: Median of the last window samples
+         */
+        public static final FilterType kMedian = new FilterType(kMedian_val, "median");
+        
+        /**
+         * Filter: Exponential moving average
+         */
+        public static final FilterType kExponential = new FilterType(kExponential_val, "ema");
+        
+        /**
+         * Filter: Constant velocity Kalman filter
+         */
+        public static final FilterType kKalman = new FilterType(kKalman_val, "kalman");
+        
+        /**
+         * Looks up a filter by its name in the settings
+         * @param name "none", "median", "ema" or "kalman"
+         * @return Filter Type, kNone if the name is unknown
+         */
+        public static FilterType fromName(String name) {
+            if(kMedian.name.equals(name)) {
+                return kMedian;
+            } else if(kExponential.name.equals(name)) {
+                return kExponential;
+            } else if(kKalman.name.equals(name)) {
+                return kKalman;
+            } else {
+                return kNone;
+            }
+        }
+    }
+    
+    private FilterType m_type = FilterType.kNone;
+    private int m_windowSize = 5;
+    private double m_alpha = .5; //Weight of a new sample in the moving average
+    private double m_processNoise = 10; //Variance of the acceleration the Kalman filter allows
+    private double m_measurementNoise = 4; //Variance of the samples
+    
+    private double m_raw = 0;
+    private double m_filtered = 0;
+    private double m_confidence = 0;
+    private double m_residual = 0; //Moving average of the squared difference between samples and the estimate
+    private int m_samples = 0;
+    
+    private final double[] m_window = new double[kMaxWindow]; //Median: last samples, oldest overwritten first
+    private final double[] m_sorted = new double[kMaxWindow];
+    private int m_next = 0;
+    
+    private double m_velocity = 0; //Kalman: estimated change per second
+    private double m_p00 = 0; //Kalman: covariance of the value and velocity estimates
+    private double m_p01 = 0;
+    private double m_p11 = 0;
+    private double m_lastTime = 0;
+    
+    /**
+     * Constructor, passes samples through until a filter is set
+     */
+    public VisionFilter() {
+    }
+    
+    /**
+     * Sets how to filter, changing it starts the filter over
+     * @param type Filter Type
+     */
+    public synchronized void setType(FilterType type) {
+        if(type != m_type) {
+            m_type = type;
+            reset();
+        }
+    }
+    
+    /**
+     * Sets how many samples the median filter looks at, changing it starts the filter over
+     * @param size Window size (1 to 15)
+     */
+    public synchronized void setWindowSize(int size) {
+        size = Math.max(1, Math.min(kMaxWindow, size));
+        if(size != m_windowSize) {
+            m_windowSize = size;
+            reset();
+        }
+    }
+    
+    /**
+     * Sets how much a new sample moves the moving average
+     * @param alpha Weight of the new sample (0 to 1), 1 follows the samples exactly
+     */
+    public synchronized void setAlpha(double alpha) {
+        m_alpha = Math.max(0, Math.min(1, alpha));
+    }
+    
+    /**
+     * Sets the noise the Kalman filter expects, the measurement noise is also what the confidence is measured against
+     * @param process Variance of the acceleration, higher follows quick changes faster
+     * @param measurement Variance of the samples, higher smooths more
+     */
+    public synchronized void setNoise(double process, double measurement) {
+        m_processNoise = Math.max(0, process);
+        m_measurementNoise = Math.max(1e-9, measurement);
+    }
+    
+    /**
+     * Forgets every sample
+     */
+    public synchronized void reset() {
+        m_samples = 0;
+        m_next = 0;
+        m_residual = 0;
+        m_confidence = 0;
+        m_velocity = 0;
+    }
+    
+    /**
+     * Adds a sample
+     * @param value Raw sample
+     * @param time When the sample was taken in seconds
+     * @return Filtered value
+     */
+    public synchronized double update(double value, double time) {
+        m_raw = value;
+        if(m_type == FilterType.kMedian) {
+            updateMedian(value);
+        } else if(m_type == FilterType.kExponential) {
+            updateExponential(value);
+        } else if(m_type == FilterType.kKalman) {
+            updateKalman(value, time);
+        } else {
+            m_filtered = value;
+            m_confidence = 1;
+        }
+        m_samples++;
+        return m_filtered;
+    }
+    
+    public synchronized double getRaw() {
+        return m_raw;
+    }
+    
+    public synchronized double getFiltered() {
+        return m_filtered;
+    }
+    
+    /**
+     * How well the samples agree with the estimate
+     * @return Confidence (0 to 1)
+     */
+    public synchronized double getConfidence() {
+        return m_confidence;
+    }
+    
+    private void updateMedian(double value) {
+        m_window[m_next] = value;
+        m_next = (m_next + 1) % m_windowSize;
+        int count = Math.min(m_samples + 1, m_windowSize);
+        
+        System.arraycopy(m_window, 0, m_sorted, 0, count);
+        sort(m_sorted, count);
+        m_filtered = median(m_sorted, count);
+        
+        for(int i = 0; i < count; i++) { //Median absolute deviation, the spread of the window
+            m_sorted[i] = Math.abs(m_window[i] - m_filtered);
+        }
+        sort(m_sorted, count);
+        double deviation = median(m_sorted, count);
+        m_confidence = (double) count / m_windowSize * confidence(deviation * deviation);
+    }
+    
+    private void updateExponential(double value) {
+        if(m_samples == 0) {
+            m_filtered = value;
+            m_residual = 0;
+        } else {
+            double error = value - m_filtered;
+            m_filtered += m_alpha * error;
+            m_residual += m_alpha * (error * error - m_residual);
+        }
+        m_confidence = confidence(m_residual);
+    }
+    
+    private void updateKalman(double value, double time) {
+        if(m_samples == 0) {
+            m_filtered = value;
+            m_velocity = 0;
+            m_p00 = m_measurementNoise;
+            m_p01 = 0;
+            m_p11 = m_measurementNoise * 100; //Nothing is known about the velocity yet
+            m_lastTime = time;
+            m_residual = 0;
+            m_confidence = confidence(0);
+            return;
+        }
+        double dt = Math.max(0, time - m_lastTime);
+        m_lastTime = time;
+        
+        //Predict: move the value along its velocity, and grow the uncertainty by the allowed acceleration
+        double dt2 = dt * dt;
+        m_filtered += m_velocity * dt;
+        m_p00 += dt * 2 * m_p01 + dt2 * m_p11 + m_processNoise * dt2 * dt2 / 4;
+        m_p01 += dt * m_p11 + m_processNoise * dt2 * dt / 2;
+        m_p11 += m_processNoise * dt2;
+        
+        //Correct: pull the prediction towards the sample by how much each is trusted
+        double innovation = value - m_filtered;
+        double s = m_p00 + m_measurementNoise;
+        double k0 = m_p00 / s;
+        double k1 = m_p01 / s;
+        m_filtered += k0 * innovation;
+        m_velocity += k1 * innovation;
+        m_p11 -= k1 * m_p01;
+        m_p01 -= k0 * m_p01;
+        m_p00 -= k0 * m_p00;
+        
+        m_residual += .2 * (innovation * innovation - s - m_residual); //Innovation beyond what the filter expected
+        m_confidence = confidence(Math.max(0, m_residual) + m_p00);
+    }
+    
+    /**
+     * Maps a variance to a confidence, 1 at no variance and 1/2 at the measurement noise
+     */
+    private double confidence(double variance) {
+        return m_measurementNoise / (m_measurementNoise + variance);
+    }
+    
+    private static void sort(double[] values, int count) {
+        for(int i = 1; i < count; i++) { //Insertion sort, the window is small
+            double value = values[i];
+            int j = i;
+            while(j > 0 && values[j - 1] > value) {
+                values[j] = values[j - 1];
+                j--;
+            }
+            values[j] = value;
+        }
+    }
+    
+    private static double median(double[] sorted, int count) {
+        if(count % 2 == 1) {
+            return sorted[count / 2];
+        }
+        return (sorted[count / 2 - 1] + sorted[count / 2]) / 2;
+    }
+}
@@ -0,0 +1,60 @@
+package org.usfirst.frc3946.Utilities;
+
+/**
+ * A copy of one frame's values from the DataKeeper, all taken together so they belong to the same frame.
+ * Allocate one up front and refill it with DataKeeper.getFrame() or DataKeeper.waitForFrame().
+ */
+public class VisionFrame {
+    
+    /**
+     * Sequence number of the frame, 0 before the first frame
+     */
+    public int sequence;
+    
+    /**
+     * If the frame had a target, when false the distance and offset are left from the last frame which did
+     */
+    public boolean report;
+    
+    /**
+     * When the distance and offset were received
+     */
+    public double time;
+    
+    public int distance;
+    public int offset;
+    public double filteredDistance;
+    public double filteredOffset;
+    public double confidence;
+    
+    /**
+     * Number of targets copied into targetOffsets and targetDistances
+     */
+    public int targetCount;
+    
+    /**
+     * Offset of each target, nearest first
+     */
+    public final int[] targetOffsets;
+    
+    /**
+     * Distance of each target, nearest first
+     */
+    public final int[] targetDistances;
+    
+    /**
+     * Constructor, with room for as many targets as the DataKeeper keeps
+     */
+    public VisionFrame() {
+        this(RaspberryPi.DataKeeper.getMaxTargets());
+    }
+    
+    /**
+     * Constructor
+     * @param maxTargets Most targets copied from a frame, such as PiMaxTargets
+     */
+    public VisionFrame(int maxTargets) {
+        targetOffsets = new int[maxTargets];
+        targetDistances = new int[maxTargets];
+    }
+}
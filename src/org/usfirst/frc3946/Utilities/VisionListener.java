@@ -0,0 +1,14 @@
+package org.usfirst.frc3946.Utilities;
+
+/**
+ * Called by the RaspberryPi socket thread each time a new frame has been stored in the DataKeeper.
+ * It runs on the socket thread, so anything slow in it delays the next frame, hand the work off to another thread instead.
+ */
+public interface VisionListener {
+    
+    /**
+     * A new frame was stored
+     * @param sequence Sequence number of the frame, frames are numbered from 1
+     */
+    public void frameReceived(int sequence);
+}
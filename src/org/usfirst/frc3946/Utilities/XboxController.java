@@ -1,6 +1,5 @@
 package org.usfirst.frc3946.Utilities;
 
-import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.GenericHID;
 import edu.wpi.first.wpilibj.parsing.IInputOutput;
 
@@ -10,7 +9,7 @@ import edu.wpi.first.wpilibj.parsing.IInputOutput;
  */
 public class XboxController extends GenericHID implements IInputOutput {
     
-    private DriverStation m_ds;
+    private final InputSource m_input;
     private final int m_port;
     
     /**
@@ -157,9 +156,18 @@ public class XboxController extends GenericHID implements IInputOutput {
      * @param port USB Port on DriverStation
      */
     public XboxController(int port) {
+        this(port, DriverStationInput.getInstance());
+    }
+    
+    /**
+     * Constructor
+     * @param port USB Port on DriverStation
+     * @param input Source of the axis and button values
+     */
+    public XboxController(int port, InputSource input) {
         super();
         m_port = port;
-        m_ds = DriverStation.getInstance();
+        m_input = input;
     }
     
     /**
@@ -168,7 +176,7 @@ public class XboxController extends GenericHID implements IInputOutput {
      * @return Value from Axis (-1 to 1)
      */
     public double getRawAxis(int axis) {
-        return m_ds.getStickAxis(m_port, axis);
+        return m_input.getStickAxis(m_port, axis);
     }
     
     /**
@@ -235,6 +243,14 @@ public class XboxController extends GenericHID implements IInputOutput {
         return getAxis(AxisType.kTrigger);
     }
     
+    /**
+     * Gets the direction the D-Pad is pointed, only left, right or center since there is no Up-Down axis
+     * @return Direction of the D-Pad
+     */
+    public DPad.Direction getDPad() {
+        return DPad.getDirection(getAxis(AxisType.kDLeftRight), 0);
+    }
+    
     /**
      * Gets value from a button
      * @param button number of the button 
@@ -257,7 +273,7 @@ public class XboxController extends GenericHID implements IInputOutput {
                 return false;
             }
         }
-        return ((0x1 << (button - 1)) & m_ds.getStickButtons(m_port)) != 0;
+        return ((0x1 << (button - 1)) & m_input.getStickButtons(m_port)) != 0;
     }
     
     /**
@@ -269,6 +285,25 @@ public class XboxController extends GenericHID implements IInputOutput {
         return getRawButton(button.value);
     }
     
+    /**
+     * Gets the state of every button at once, including the triggers abstracted from their analog axis
+     * @return Button bits, button 1 in the lowest bit
+     */
+    public int getRawButtons() {
+        int buttons = m_input.getStickButtons(m_port);
+        int rightTrigger = 0x1 << (ButtonType.kRightTrigger.value - 1);
+        int leftTrigger = 0x1 << (ButtonType.kLeftTrigger.value - 1);
+        buttons &= ~(rightTrigger | leftTrigger);
+        double throttle = getThrottle();
+        if(throttle <= -.6) {
+            buttons |= rightTrigger;
+        }
+        if(throttle >= .6) {
+            buttons |= leftTrigger;
+        }
+        return buttons;
+    }
+    
     /**
      * Get Trigger Value as Button
      * @param hand Hand associated with button
@@ -0,0 +1,125 @@
+import java.util.Random;
+import org.usfirst.frc3946.Utilities.DeltaFrameDecoder;
+import org.usfirst.frc3946.Utilities.DeltaFrameEncoder;
+import org.usfirst.frc3946.Utilities.RaspberryPi;
+import org.usfirst.frc3946.Utilities.RaspberryPiConfig;
+
+/**
+ * Desktop tool which compares the RaspberryPi's delta frames against its text frames, in bytes per frame and in time to decode.
+ * It makes up a stream of slowly moving targets, encodes every frame both ways, then times the robot's own decoding of each:
+ * DeltaFrameDecoder for delta frames, and the String building and RaspberryPi.parseData() of getRawData() for text frames.
+ * It runs the library's classes, so it is compiled against src with the desktop stand-ins in tools/shim:
+ * javac -d bench -sourcepath src:tools/shim tools/DeltaFrameBenchmark.java
+ * java -cp bench DeltaFrameBenchmark [targets] [frames] [keyframe period]
+ */
+public class DeltaFrameBenchmark {
+    
+    private static final int kPasses = 20; //Timed passes over the frames, the first ones warm up the JIT
+    
+    public static void main(String[] args) {
+        int targets = args.length > 0 ? Integer.parseInt(args[0]) : 2;
+        int frames = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        int keyframePeriod = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        
+        byte[][] delta = new byte[frames][];
+        byte[][] text = new byte[frames][];
+        makeFrames(targets, keyframePeriod, delta, text);
+        
+        RaspberryPiConfig config = new RaspberryPiConfig();
+        config.setUrl("socket://127.0.0.1:1"); //Nothing listens there, only parseData() is used
+        config.setMaxTargets(targets);
+        RaspberryPi pi = new RaspberryPi(config);
+        
+        double deltaTime = Double.MAX_VALUE;
+        double textTime = Double.MAX_VALUE;
+        for(int pass = 0; pass < kPasses; pass++) { //Best of the passes, the least disturbed by the rest of the PC
+            deltaTime = Math.min(deltaTime, timeDelta(delta));
+            textTime = Math.min(textTime, timeText(pi, text, targets));
+        }
+        
+        System.out.println(targets + " targets, " + frames + " frames, a keyframe every " + keyframePeriod);
+        System.out.println("mode\tbytes/frame\tns/frame");
+        System.out.println("delta\t" + round(averageSize(delta)) + "\t\t" + round(deltaTime));
+        System.out.println("text\t" + round(averageSize(text)) + "\t\t" + round(textTime));
+        System.exit(0); //The RaspberryPi's socket thread never ends
+    }
+    
+    /**
+     * Makes up targets which drift by a few pixels a frame, with the count changing now and then
+     */
+    private static void makeFrames(int targets, int keyframePeriod, byte[][] delta, byte[][] text) {
+        Random random = new Random(3946);
+        DeltaFrameEncoder encoder = new DeltaFrameEncoder();
+        byte[] buffer = new byte[DeltaFrameEncoder.kMaxFrameSize];
+        int[] offsets = new int[targets];
+        int[] distances = new int[targets];
+        for(int i = 0; i < targets; i++) {
+            offsets[i] = random.nextInt(320) - 160;
+            distances[i] = 100 + random.nextInt(400);
+        }
+        int count = targets;
+        
+        for(int frame = 0; frame < delta.length; frame++) {
+            if(random.nextInt(100) == 0) {
+                count = random.nextInt(targets + 1);
+            }
+            for(int i = 0; i < count; i++) {
+                if(random.nextInt(3) == 0) {
+                    offsets[i] += random.nextInt(7) - 3;
+                }
+                if(random.nextInt(4) == 0) {
+                    distances[i] += random.nextInt(5) - 2;
+                }
+            }
+            int length = encoder.encode(offsets, distances, count, frame % keyframePeriod == 0, buffer);
+            delta[frame] = new byte[length];
+            System.arraycopy(buffer, 0, delta[frame], 0, length);
+            
+            StringBuffer line = new StringBuffer();
+            line.append(RaspberryPi.kTargetList).append(count);
+            for(int i = 0; i < count; i++) {
+                line.append(',').append(offsets[i]).append(',').append(distances[i]);
+            }
+            text[frame] = line.toString().getBytes();
+        }
+    }
+    
+    private static double timeDelta(byte[][] frames) {
+        DeltaFrameDecoder decoder = new DeltaFrameDecoder();
+        long start = System.nanoTime();
+        for(int i = 0; i < frames.length; i++) {
+            if(!decoder.decode(frames[i], frames[i].length)) {
+                throw new IllegalStateException("Frame " + i + " did not decode");
+            }
+        }
+        return (double) (System.nanoTime() - start) / frames.length;
+    }
+    
+    private static double timeText(RaspberryPi pi, byte[][] frames, int targets) {
+        int[] values = new int[1 + 2 * targets];
+        char[] chars = new char[256];
+        long start = System.nanoTime();
+        for(int i = 0; i < frames.length; i++) {
+            byte[] frame = frames[i];
+            for(int j = 0; j < frame.length; j++) { //As getRawData() builds its String
+                chars[j] = (char) (frame[j] & 0xFF);
+            }
+            if(pi.parseData(new String(chars, 0, frame.length), 1, values) < 1) {
+                throw new IllegalStateException("Frame " + i + " did not parse");
+            }
+        }
+        return (double) (System.nanoTime() - start) / frames.length;
+    }
+    
+    private static double averageSize(byte[][] frames) {
+        long bytes = 0;
+        for(int i = 0; i < frames.length; i++) {
+            bytes += frames[i].length;
+        }
+        return (double) bytes / frames.length;
+    }
+    
+    private static double round(double value) {
+        return Math.floor(value * 10 + .5) / 10;
+    }
+}
@@ -0,0 +1,305 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Random;
+import java.util.Vector;
+import org.usfirst.frc3946.Utilities.DeltaFrameDecoder;
+import org.usfirst.frc3946.Utilities.DeltaFrameEncoder;
+import org.usfirst.frc3946.Utilities.RaspberryPi;
+
+/**
+ * Desktop stand-in for the vision coprocessor, which answers a RaspberryPi's requests the way the Pi does and breaks the
+ * connection on purpose now and then, so the robot side can be run against the faults a real field network throws at it.
+ * It answers 'G' with a text frame, 'K' and 'D' with a delta frame, and ignores the '\n' the robot sends to check the connection.
+ * Every target it sends has an offset and distance adding up to kSum, so a reader can tell a frame it put together wrongly.
+ * A fault, when one is drawn, takes the place of the answer:
+ * a disconnect, a slow write one byte at a time, an oversized burst, a few garbage bytes,
+ * or a half-open connection which is never read or written again but is not closed either, as when the Pi loses power.
+ * Run on its own it listens for a robot, and RaspberryPiSoak runs it in the same program:
+ * javac -d soak -sourcepath src:tools:tools/shim tools/FakePi.java
+ * java -cp soak FakePi [port] [ascii|delta] [fault percent]
+ */
+public class FakePi {
+    
+    /**
+     * Offset plus distance of every target sent
+     */
+    public static final int kSum = 1000;
+    
+    public static final int kDisconnect = 0; //Faults
+    public static final int kSlowWrite = 1;
+    public static final int kBurst = 2;
+    public static final int kGarbage = 3;
+    public static final int kHalfOpen = 4;
+    public static final int kFaultTypes = 5;
+    private static final String[] kFaultNames = {"disconnect", "slow write", "burst", "garbage", "half-open"};
+    private static final int[] kFaultWeights = {25, 20, 15, 25, 15};
+    
+    private static final int kTargets = 2;
+    private static final int kBurstSize = 4096; //Bigger than the robot's receive buffer
+    private static final int kGarbageSize = 16;
+    private static final long kSlowByteDelay = 3; //ms between the bytes of a slow write
+    
+    private final ServerSocket m_server;
+    private final boolean m_deltaFrames;
+    private final Random m_random;
+    private final Vector<Socket> m_sockets = new Vector<Socket>(); //Every connection accepted, to close them all at the end
+    private int m_faultPercent;
+    private boolean m_closed = false;
+    
+    private int m_frame = 0;
+    private int m_requests = 0;
+    private int m_framesSent = 0;
+    private final int[] m_faults = new int[kFaultTypes];
+    
+    /**
+     * Constructor, starts listening
+     * @param port Port to listen on, 0 for any free port
+     * @param deltaFrames If frames are sent in delta mode instead of as text
+     * @param faultPercent Chance of a fault in place of each answer (0 to 100)
+     * @param seed Seed for the faults and targets, so a run can be repeated
+     * @throws IOException If the port could not be listened on
+     */
+    public FakePi(int port, boolean deltaFrames, int faultPercent, long seed) throws IOException {
+        m_server = new ServerSocket(port);
+        m_deltaFrames = deltaFrames;
+        m_faultPercent = faultPercent;
+        m_random = new Random(seed);
+        Thread accepter = new Thread("FakePi") {
+            public void run() {
+                accept();
+            }
+        };
+        accepter.setDaemon(true);
+        accepter.start();
+    }
+    
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        boolean deltaFrames = args.length > 1 && args[1].equals("delta");
+        int faultPercent = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+        FakePi pi = new FakePi(port, deltaFrames, faultPercent, System.currentTimeMillis());
+        System.out.println("Listening on " + pi.getPort());
+        while(true) {
+            Thread.sleep(5000);
+            System.out.println(pi.getRequests() + " requests, " + pi.getFramesSent() + " frames, faults: " + pi.getFaultSummary());
+        }
+    }
+    
+    public int getPort() {
+        return m_server.getLocalPort();
+    }
+    
+    public synchronized void setFaultPercent(int faultPercent) {
+        m_faultPercent = faultPercent;
+    }
+    
+    public synchronized int getRequests() {
+        return m_requests;
+    }
+    
+    public synchronized int getFramesSent() {
+        return m_framesSent;
+    }
+    
+    public synchronized int getFaults(int type) {
+        return m_faults[type];
+    }
+    
+    /**
+     * Number of each fault injected, as "disconnect 3, slow write 5..."
+     * @return Fault counts
+     */
+    public synchronized String getFaultSummary() {
+        StringBuffer summary = new StringBuffer();
+        for(int i = 0; i < kFaultTypes; i++) {
+            if(i > 0) {
+                summary.append(", ");
+            }
+            summary.append(kFaultNames[i]).append(' ').append(m_faults[i]);
+        }
+        return summary.toString();
+    }
+    
+    /**
+     * Stops listening and closes every connection, half-open ones included
+     */
+    public void close() {
+        synchronized(this) {
+            m_closed = true;
+            notifyAll(); //Lets the half-open connections go
+        }
+        try {
+            m_server.close();
+        } catch(IOException ex) {}
+        synchronized(m_sockets) {
+            for(int i = 0; i < m_sockets.size(); i++) {
+                closeQuietly(m_sockets.elementAt(i));
+            }
+            m_sockets.removeAllElements();
+        }
+    }
+    
+    private void accept() {
+        while(true) {
+            final Socket socket;
+            try {
+                socket = m_server.accept();
+                socket.setTcpNoDelay(true);
+            } catch(IOException ex) { //Closed
+                return;
+            }
+            synchronized(m_sockets) {
+                m_sockets.addElement(socket);
+            }
+            Thread connection = new Thread("FakePi connection") {
+                public void run() {
+                    try {
+                        serve(socket);
+                    } catch(IOException ex) { //The robot hung up
+                    } catch(InterruptedException ex) {}
+                    closeQuietly(socket);
+                    synchronized(m_sockets) {
+                        m_sockets.removeElement(socket);
+                    }
+                }
+            };
+            connection.setDaemon(true);
+            connection.start();
+        }
+    }
+    
+    private void serve(Socket socket) throws IOException, InterruptedException {
+        InputStream is = socket.getInputStream();
+        OutputStream os = socket.getOutputStream();
+        DeltaFrameEncoder encoder = new DeltaFrameEncoder(); //A new connection starts a new sequence, as a restarted Pi would
+        byte[] buffer = new byte[DeltaFrameEncoder.kMaxFrameSize];
+        int[] offsets = new int[kTargets];
+        int[] distances = new int[kTargets];
+        
+        int request;
+        while((request = is.read()) >= 0) {
+            if(request != 'G' && request != DeltaFrameDecoder.kKeyframe && request != DeltaFrameDecoder.kDelta) {
+                continue; //Connection check
+            }
+            int fault = nextFault();
+            if(fault == kDisconnect) {
+                return;
+            }
+            if(fault == kHalfOpen) {
+                synchronized(this) {
+                    while(!m_closed) {
+                        wait();
+                    }
+                }
+                return;
+            }
+            if(fault == kBurst) {
+                os.write(makeBurst());
+                os.flush();
+                continue;
+            }
+            if(fault == kGarbage) {
+                byte[] garbage = new byte[kGarbageSize];
+                synchronized(this) {
+                    m_random.nextBytes(garbage);
+                }
+                os.write(garbage);
+                os.flush();
+                continue;
+            }
+            
+            int count = nextTargets(offsets, distances);
+            byte[] frame;
+            int length;
+            if(m_deltaFrames) {
+                length = encoder.encode(offsets, distances, count, request == DeltaFrameDecoder.kKeyframe, buffer);
+                frame = buffer;
+            } else {
+                StringBuffer line = new StringBuffer();
+                line.append(RaspberryPi.kTargetList).append(count);
+                for(int i = 0; i < count; i++) {
+                    line.append(',').append(offsets[i]).append(',').append(distances[i]);
+                }
+                frame = line.toString().getBytes();
+                length = frame.length;
+            }
+            if(fault == kSlowWrite) {
+                for(int i = 0; i < length; i++) {
+                    os.write(frame[i]);
+                    os.flush();
+                    Thread.sleep(kSlowByteDelay);
+                }
+            } else {
+                os.write(frame, 0, length);
+                os.flush();
+            }
+            synchronized(this) {
+                m_framesSent++;
+            }
+        }
+    }
+    
+    /**
+     * Draws whether to inject a fault in place of the next answer, and which
+     * @return Fault type, or -1 to answer normally
+     */
+    private synchronized int nextFault() {
+        m_requests++;
+        if(m_random.nextInt(100) >= m_faultPercent) {
+            return -1;
+        }
+        int total = 0;
+        for(int i = 0; i < kFaultTypes; i++) {
+            total += kFaultWeights[i];
+        }
+        int draw = m_random.nextInt(total);
+        for(int i = 0; i < kFaultTypes; i++) {
+            draw -= kFaultWeights[i];
+            if(draw < 0) {
+                m_faults[i]++;
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Moves the targets along, sweeping back and forth so every frame differs from the last
+     * @return Number of targets
+     */
+    private synchronized int nextTargets(int[] offsets, int[] distances) {
+        m_frame++;
+        for(int i = 0; i < kTargets; i++) {
+            offsets[i] = (m_frame * (i + 1)) % 400 - 200;
+            distances[i] = kSum - offsets[i];
+        }
+        return kTargets;
+    }
+    
+    /**
+     * Far more than a frame, a text frame which never ends or a delta frame claiming too long a body
+     */
+    private byte[] makeBurst() {
+        byte[] burst = new byte[kBurstSize];
+        if(m_deltaFrames) {
+            burst[0] = DeltaFrameDecoder.kKeyframe;
+            burst[1] = (byte) 0xFF;
+            burst[2] = (byte) 0x7F;
+        } else {
+            burst[0] = (byte) RaspberryPi.kTargetList;
+            for(int i = 1; i < kBurstSize; i++) {
+                burst[i] = (byte) (i % 2 == 0 ? ',' : '1');
+            }
+        }
+        return burst;
+    }
+    
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch(IOException ex) {}
+    }
+}
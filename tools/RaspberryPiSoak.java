@@ -0,0 +1,245 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import org.usfirst.frc3946.Utilities.RaspberryPi;
+import org.usfirst.frc3946.Utilities.RaspberryPiConfig;
+import org.usfirst.frc3946.Utilities.VisionFrame;
+import org.usfirst.frc3946.Utilities.VisionListener;
+
+/**
+ * Desktop soak test which runs a RaspberryPi against a FakePi for a while, clean, then with faults, then clean again,
+ * and fails unless the socket thread stays alive, frames keep coming through the faults, the heap stays bounded
+ * and the frame rate recovers once the faults stop. It reports how far the faults pull the frame rate down.
+ * Last it stops the RaspberryPi for longer than the silence timeout and starts it again, which must not cost a reconnect.
+ * While the faults are on, a listener which throws now and then stands in for robot code with a bug in it,
+ * some of which reaches the socket thread itself.
+ * In delta mode every frame must also add up, text frames have no framing so a slow write can be read as two wrong frames,
+ * those are only counted.
+ * It runs the library's classes and FakePi, so it is compiled against src and tools with the desktop stand-ins in tools/shim:
+ * javac -d soak -sourcepath src:tools:tools/shim tools/RaspberryPiSoak.java
+ * java -cp soak RaspberryPiSoak [ascii|delta] [seconds per phase] [fault percent]
+ * Exits with 1 if any check failed.
+ */
+public class RaspberryPiSoak {
+    
+    private static final long kPollPeriod = 5; //ms, faster than the robot's default to push more frames through
+    private static final long kResponseTimeout = 20;
+    private static final long kSilenceTimeout = 500;
+    private static final long kWarmup = 2000;
+    private static final int kListenerFault = 250; //The listener throws on every this many frames, an Error every fourth time
+    
+    private static final double kMinFaultRate = .5; //Of the clean frame rate, over the whole faulty phase
+    private static final double kMinSecondRate = .1; //Of the clean frame rate, in every second of the faulty phase
+    private static final double kMinRecoveredRate = .8; //Of the clean frame rate, once the faults stop
+    private static final long kMaxGap = kSilenceTimeout + 1000; //ms without a frame, a half-open connection is the longest
+    private static final long kMaxHeapGrowth = 4 * 1024 * 1024; //bytes
+    private static final long kStopped = 4 * kSilenceTimeout; //ms the RaspberryPi is stopped for before restarting it
+    private static final int kRestartSeconds = 5;
+    
+    private static PrintStream m_out; //The library prints every fault, the report goes to the real console
+    
+    private static int m_frames = 0; //Frames with targets
+    private static int m_badFrames = 0; //Frames whose targets do not add up
+    private static long m_lastFrame = 0;
+    private static long m_longestGap = 0;
+    private static boolean m_listenerFaults = false; //If the listener throws, only while FakePi injects faults
+    private static long m_heapPeak = 0; //Most heap in use in the last phase, in bytes
+    private static boolean m_failed = false;
+    
+    public static void main(String[] args) throws Exception {
+        boolean deltaFrames = args.length > 0 && args[0].equals("delta");
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int faultPercent = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        
+        m_out = System.out;
+        PrintStream quiet = new PrintStream(new OutputStream() {
+            public void write(int b) {}
+        });
+        System.setOut(quiet);
+        System.setErr(quiet);
+        
+        FakePi fake = new FakePi(0, deltaFrames, 0, 3946);
+        RaspberryPiConfig config = new RaspberryPiConfig();
+        config.setUrl("socket://127.0.0.1:" + fake.getPort());
+        config.setDeltaFrames(deltaFrames);
+        config.setPollPeriod(kPollPeriod);
+        config.setResponseTimeout(kResponseTimeout);
+        config.setSilenceTimeout(kSilenceTimeout);
+        config.setPublishPeriod(0);
+        final RaspberryPi pi = new RaspberryPi(config);
+        pi.addListener(new VisionListener() {
+            private final VisionFrame m_frame = new VisionFrame();
+            
+            public void frameReceived(int sequence) {
+                countFrame(m_frame);
+                if(sequence % kListenerFault == 0 && isListenerFaults()) {
+                    if((sequence / kListenerFault) % 4 == 0) {
+                        throw new Error("Listener fault"); //Gets past the listener's own catch to the socket thread's
+                    }
+                    throw new RuntimeException("Listener fault");
+                }
+            }
+        });
+        pi.start();
+        
+        m_out.println((deltaFrames ? "delta" : "ascii") + " frames, " + seconds + " s per phase, " + faultPercent + "% faults");
+        m_out.println("phase\tsecond\tframes/s\treconnects\tthread errors\theap KB");
+        Thread.sleep(kWarmup);
+        
+        double cleanRate = runPhase("clean", pi, seconds, null);
+        long heapBase = usedHeap();
+        resetGap();
+        
+        fake.setFaultPercent(faultPercent);
+        setListenerFaults(true);
+        double[] slowest = new double[1];
+        double faultRate = runPhase("faults", pi, seconds, slowest);
+        long heapPeak = m_heapPeak;
+        long gap = resetGap();
+        
+        fake.setFaultPercent(0);
+        setListenerFaults(false);
+        Thread.sleep(kSilenceTimeout); //Let a half-open connection left over from the faults time out
+        double recoveredRate = runPhase("recover", pi, seconds, null);
+        
+        pi.stop();
+        Thread.sleep(kStopped / 2); //Let the last poll finish
+        int stoppedFrames = getFrames();
+        Thread.sleep(kStopped / 2);
+        stoppedFrames = getFrames() - stoppedFrames;
+        int reconnects = pi.getReconnects();
+        pi.start();
+        double restartRate = runPhase("restart", pi, kRestartSeconds, null);
+        int restartReconnects = pi.getReconnects() - reconnects;
+        
+        m_out.println();
+        m_out.println("clean\t\t" + round(cleanRate) + " frames/s");
+        m_out.println("faults\t\t" + round(faultRate) + " frames/s, " + round(100 * (1 - faultRate / cleanRate)) + "% lower"
+                + ", slowest second " + round(slowest[0]) + ", longest gap " + gap + " ms");
+        m_out.println("recovered\t" + round(recoveredRate) + " frames/s");
+        m_out.println("restarted\t" + round(restartRate) + " frames/s after " + kStopped + " ms stopped, "
+                + restartReconnects + " reconnects, " + stoppedFrames + " frames while stopped");
+        m_out.println("heap\t\t" + heapBase / 1024 + " KB after the clean phase, " + heapPeak / 1024 + " KB at most with faults");
+        m_out.println("injected\t" + fake.getFaultSummary() + " in " + fake.getRequests() + " requests");
+        m_out.println("robot\t\t" + pi.getReconnects() + " reconnects, " + pi.getThreadErrors() + " thread errors, "
+                + round(pi.getBytesPerFrame()) + " bytes/frame, " + getBadFrames() + " frames which did not add up");
+        
+        check(pi.isThreadAlive(), "socket thread died");
+        check(cleanRate > 0, "no frames without faults");
+        check(faultRate >= kMinFaultRate * cleanRate, "frame rate with faults below " + round(100 * kMinFaultRate) + "% of clean");
+        check(slowest[0] >= kMinSecondRate * cleanRate, "a second with faults below " + round(100 * kMinSecondRate) + "% of clean");
+        check(gap <= kMaxGap, "no frames for longer than " + kMaxGap + " ms");
+        check(recoveredRate >= kMinRecoveredRate * cleanRate, "frame rate did not recover after the faults");
+        check(stoppedFrames == 0, "frames kept coming while stopped");
+        check(restartReconnects == 0, "restarting after a stop reconnected a healthy Pi");
+        check(restartRate >= kMinRecoveredRate * cleanRate, "frame rate did not come back after a restart");
+        check(heapPeak - heapBase <= kMaxHeapGrowth, "heap grew by more than " + kMaxHeapGrowth / 1024 + " KB");
+        check(pi.getThreadErrors() > 0, "the listener faults never reached the socket thread");
+        for(int i = 0; i < FakePi.kFaultTypes; i++) {
+            check(fake.getFaults(i) > 0, "not every fault was injected, run for longer");
+        }
+        if(deltaFrames) {
+            check(getBadFrames() == 0, "delta frames which did not add up");
+        }
+        
+        m_out.println(m_failed ? "FAILED" : "PASSED");
+        fake.close();
+        System.exit(m_failed ? 1 : 0); //The RaspberryPi's socket thread never ends
+    }
+    
+    /**
+     * Runs for a number of seconds, checking the socket thread every second
+     * @param slowest Where to put the fewest frames in one second, or null
+     * @return Frames per second
+     */
+    private static double runPhase(String name, RaspberryPi pi, int seconds, double[] slowest) throws InterruptedException {
+        m_heapPeak = 0;
+        int start = getFrames();
+        int last = start;
+        double fewest = Double.MAX_VALUE;
+        for(int second = 1; second <= seconds; second++) {
+            Thread.sleep(1000);
+            int frames = getFrames();
+            long heap = usedHeap();
+            m_heapPeak = Math.max(m_heapPeak, heap);
+            fewest = Math.min(fewest, frames - last);
+            m_out.println(name + "\t" + second + "\t" + (frames - last) + "\t\t" + pi.getReconnects() + "\t\t"
+                    + pi.getThreadErrors() + "\t\t" + heap / 1024);
+            last = frames;
+            if(!pi.isThreadAlive()) {
+                break;
+            }
+        }
+        if(slowest != null) {
+            slowest[0] = fewest;
+        }
+        return (double) (getFrames() - start) / seconds;
+    }
+    
+    /**
+     * Counts a frame on the socket thread, and checks its targets add up
+     */
+    private static synchronized void countFrame(VisionFrame frame) {
+        RaspberryPi.DataKeeper.getFrame(frame);
+        if(!frame.report || frame.targetCount == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if(m_lastFrame != 0) {
+            m_longestGap = Math.max(m_longestGap, now - m_lastFrame);
+        }
+        m_lastFrame = now;
+        m_frames++;
+        int targets = Math.min(frame.targetCount, frame.targetOffsets.length);
+        for(int i = 0; i < targets; i++) {
+            if(frame.targetOffsets[i] + frame.targetDistances[i] != FakePi.kSum) {
+                m_badFrames++;
+                return;
+            }
+        }
+    }
+    
+    private static synchronized void setListenerFaults(boolean listenerFaults) {
+        m_listenerFaults = listenerFaults;
+    }
+    
+    private static synchronized boolean isListenerFaults() {
+        return m_listenerFaults;
+    }
+    
+    private static synchronized int getFrames() {
+        return m_frames;
+    }
+    
+    private static synchronized int getBadFrames() {
+        return m_badFrames;
+    }
+    
+    /**
+     * Starts timing gaps between frames over
+     * @return Longest gap since the last reset, in ms
+     */
+    private static synchronized long resetGap() {
+        long now = System.currentTimeMillis();
+        long gap = Math.max(m_longestGap, now - m_lastFrame); //Including one still going
+        m_longestGap = 0;
+        m_lastFrame = now;
+        return gap;
+    }
+    
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+    
+    private static void check(boolean passed, String failure) {
+        if(!passed) {
+            m_out.println("CHECK FAILED: " + failure);
+            m_failed = true;
+        }
+    }
+    
+    private static double round(double value) {
+        return Math.floor(value * 10 + .5) / 10;
+    }
+}
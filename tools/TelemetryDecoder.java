@@ -0,0 +1,94 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+
+/**
+ * Desktop tool which converts a log written by org.usfirst.frc3946.Utilities.TelemetryLogger into CSV.
+ * It does not run on the robot and has no dependencies, so it can be compiled and run on its own:
+ * javac TelemetryDecoder.java
+ * java TelemetryDecoder match.tlog > match.csv
+ * With no file given, the log is read from standard input.
+ */
+public class TelemetryDecoder {
+    
+    private static final int kVision = 1; //Record types, must match TelemetryLogger
+    private static final int kController = 2;
+    private static final int kAxisCount = 6;
+    
+    public static void main(String[] args) throws IOException {
+        InputStream is = args.length > 0 ? new FileInputStream(args[0]) : System.in;
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+        try {
+            decode(is, out);
+        } finally {
+            out.flush();
+            is.close();
+        }
+    }
+    
+    /**
+     * Converts a log to CSV, one line per record
+     * @param is Stream to read the log from
+     * @param out Where to write the CSV
+     * @throws IOException If the log is not a telemetry log or could not be read
+     */
+    public static void decode(InputStream is, PrintStream out) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(is, 1 << 16));
+        if(in.readUnsignedByte() != 'T' || in.readUnsignedByte() != 'L') {
+            throw new IOException("Not a telemetry log");
+        }
+        int version = in.readUnsignedByte();
+        if(version != 1) {
+            throw new IOException("Unsupported telemetry log version " + version);
+        }
+        
+        out.print("type,time,distance,offset,report,port");
+        for(int axis = 1; axis <= kAxisCount; axis++) {
+            out.print(",axis" + axis);
+        }
+        out.println(",buttons");
+        
+        StringBuffer line = new StringBuffer(128);
+        while(true) {
+            int type;
+            try {
+                type = in.readUnsignedByte();
+            } catch(EOFException ex) {
+                break;
+            }
+            line.setLength(0);
+            try {
+                if(type == kVision) {
+                    double time = in.readDouble();
+                    int distance = in.readInt();
+                    int offset = in.readInt();
+                    boolean report = in.readByte() != 0;
+                    line.append("vision,").append(time).append(',').append(distance).append(',').append(offset).append(',').append(report).append(',');
+                    for(int axis = 0; axis < kAxisCount; axis++) {
+                        line.append(',');
+                    }
+                    line.append(',');
+                } else if(type == kController) {
+                    double time = in.readDouble();
+                    int port = in.readUnsignedByte();
+                    line.append("controller,").append(time).append(",,,,").append(port);
+                    for(int axis = 0; axis < kAxisCount; axis++) {
+                        int value = in.readByte();
+                        line.append(',').append(value < 0 ? value / 128.0 : value / 127.0);
+                    }
+                    line.append(',').append(in.readUnsignedShort());
+                } else {
+                    throw new IOException("Unknown record type " + type);
+                }
+            } catch(EOFException ex) { //Log cut off mid record, keep what was decoded
+                break;
+            }
+            out.println(line);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.sun.squawk.util;
+
+public class StringTokenizer extends java.util.StringTokenizer {
+    
+    public StringTokenizer(String str, String delim) {
+        super(str, delim);
+    }
+}
@@ -0,0 +1,27 @@
+package edu.wpi.first.wpilibj;
+
+/**
+ * Every controller is centered with no buttons held.
+ */
+public class DriverStation {
+    
+    private static final DriverStation m_instance = new DriverStation();
+    
+    public static DriverStation getInstance() {
+        return m_instance;
+    }
+    
+    public double getStickAxis(int stick, int axis) {
+        return 0;
+    }
+    
+    public int getStickButtons(int stick) {
+        return 0;
+    }
+    
+    public void waitForData() {
+        try {
+            Thread.sleep(20); //Packets arrive every 20ms
+        } catch(InterruptedException ex) {}
+    }
+}
@@ -0,0 +1,36 @@
+package edu.wpi.first.wpilibj;
+
+public abstract class GenericHID {
+    
+    public static class Hand {
+        
+        public final int value;
+        
+        private Hand(int value) {
+            this.value = value;
+        }
+        
+        public static final Hand kLeft = new Hand(0);
+        public static final Hand kRight = new Hand(1);
+    }
+    
+    public abstract double getX(Hand hand);
+    
+    public abstract double getY(Hand hand);
+    
+    public abstract double getZ(Hand hand);
+    
+    public abstract double getTwist();
+    
+    public abstract double getThrottle();
+    
+    public abstract double getRawAxis(int axis);
+    
+    public abstract boolean getTrigger(Hand hand);
+    
+    public abstract boolean getTop(Hand hand);
+    
+    public abstract boolean getBumper(Hand hand);
+    
+    public abstract boolean getRawButton(int button);
+}
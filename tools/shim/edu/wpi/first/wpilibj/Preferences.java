@@ -0,0 +1,25 @@
+package edu.wpi.first.wpilibj;
+
+/**
+ * Holds no settings, every value is its default.
+ */
+public class Preferences {
+    
+    private static final Preferences m_instance = new Preferences();
+    
+    public static Preferences getInstance() {
+        return m_instance;
+    }
+    
+    public String getString(String key, String backup) {
+        return backup;
+    }
+    
+    public int getInt(String key, int backup) {
+        return backup;
+    }
+    
+    public double getDouble(String key, double backup) {
+        return backup;
+    }
+}
@@ -0,0 +1,8 @@
+package edu.wpi.first.wpilibj;
+
+public class Timer {
+    
+    public static double getFPGATimestamp() {
+        return System.nanoTime() / 1e9;
+    }
+}
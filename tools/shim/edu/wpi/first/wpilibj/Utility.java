@@ -0,0 +1,13 @@
+package edu.wpi.first.wpilibj;
+
+/**
+ * The FPGA clock, read from System.nanoTime() so it counts microseconds the same way.
+ */
+public class Utility {
+    
+    private static final long m_start = System.nanoTime(); //The FPGA clock starts at 0 when the robot boots
+    
+    public static long getFPGATime() {
+        return (System.nanoTime() - m_start) / 1000;
+    }
+}
@@ -0,0 +1,4 @@
+package edu.wpi.first.wpilibj.parsing;
+
+public interface IInputOutput {
+}
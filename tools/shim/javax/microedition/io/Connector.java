@@ -0,0 +1,46 @@
+package javax.microedition.io;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+
+/**
+ * Opens "socket://host:port" urls as TCP sockets and "file:///path" urls as files.
+ */
+public class Connector {
+    
+    public static Connection open(String url) throws IOException {
+        if(!url.startsWith("socket://")) {
+            throw new IOException("Only socket urls can be opened: " + url);
+        }
+        String address = url.substring("socket://".length());
+        int colon = address.lastIndexOf(':');
+        final Socket socket = new Socket(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+        return new SocketConnection() {
+            
+            public void setSocketOption(byte option, int value) throws IOException {
+                if(option == DELAY) {
+                    socket.setTcpNoDelay(value == 0);
+                }
+            }
+            
+            public InputStream openInputStream() throws IOException {
+                return socket.getInputStream();
+            }
+            
+            public OutputStream openOutputStream() throws IOException {
+                return socket.getOutputStream();
+            }
+            
+            public void close() throws IOException {
+                socket.close();
+            }
+        };
+    }
+    
+    public static InputStream openInputStream(String url) throws IOException {
+        return new FileInputStream(url.substring("file://".length()));
+    }
+}
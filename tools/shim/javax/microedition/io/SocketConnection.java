@@ -0,0 +1,16 @@
+package javax.microedition.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface SocketConnection extends Connection {
+    
+    public static final byte DELAY = 0;
+    
+    public void setSocketOption(byte option, int value) throws IOException;
+    
+    public InputStream openInputStream() throws IOException;
+    
+    public OutputStream openOutputStream() throws IOException;
+}